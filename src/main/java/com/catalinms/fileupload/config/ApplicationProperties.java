@@ -11,4 +11,231 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Storage storage = new Storage();
+
+    private final Cache cache = new Cache();
+
+    private final Batch batch = new Batch();
+
+    private final Ingest ingest = new Ingest();
+
+    private final RowIndex rowIndex = new RowIndex();
+
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Ingest getIngest() {
+        return ingest;
+    }
+
+    public RowIndex getRowIndex() {
+        return rowIndex;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static class Storage {
+
+        public enum Type {
+            FILESYSTEM, MEMORY
+        }
+
+        private Type type = Type.FILESYSTEM;
+
+        private String location = "data/blobs";
+
+        private String stagingLocation = "data/uploads";
+
+        public Type getType() {
+            return type;
+        }
+
+        public void setType(Type type) {
+            this.type = type;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public String getStagingLocation() {
+            return stagingLocation;
+        }
+
+        public void setStagingLocation(String stagingLocation) {
+            this.stagingLocation = stagingLocation;
+        }
+    }
+
+    /**
+     * Sizes of the file caches, in megabytes rather than in entries, so that their memory stays bounded
+     * whatever the size of the files. The tiers of the content cache must grow from heap to disk.
+     */
+    public static class Cache {
+
+        private long metadataHeapSize = 16;
+
+        private long blobHeapSize = 16;
+
+        private long blobOffHeapSize = 128;
+
+        private long blobDiskSize = 1024;
+
+        private String blobDiskLocation = "data/cache";
+
+        public long getMetadataHeapSize() {
+            return metadataHeapSize;
+        }
+
+        public void setMetadataHeapSize(long metadataHeapSize) {
+            this.metadataHeapSize = metadataHeapSize;
+        }
+
+        public long getBlobHeapSize() {
+            return blobHeapSize;
+        }
+
+        public void setBlobHeapSize(long blobHeapSize) {
+            this.blobHeapSize = blobHeapSize;
+        }
+
+        public long getBlobOffHeapSize() {
+            return blobOffHeapSize;
+        }
+
+        public void setBlobOffHeapSize(long blobOffHeapSize) {
+            this.blobOffHeapSize = blobOffHeapSize;
+        }
+
+        public long getBlobDiskSize() {
+            return blobDiskSize;
+        }
+
+        public void setBlobDiskSize(long blobDiskSize) {
+            this.blobDiskSize = blobDiskSize;
+        }
+
+        public String getBlobDiskLocation() {
+            return blobDiskLocation;
+        }
+
+        public void setBlobDiskLocation(String blobDiskLocation) {
+            this.blobDiskLocation = blobDiskLocation;
+        }
+    }
+
+    /**
+     * Batch uploads persist their files this many at a time, in one JDBC batch per table.
+     */
+    public static class Batch {
+
+        private int size = 50;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Asynchronous uploads are processed by this many threads at once, with at most a queue capacity of uploads
+     * waiting for one; the jobs are kept for a number of days once done.
+     */
+    public static class Ingest {
+
+        private int parallelism = 4;
+
+        private int queueCapacity = 100;
+
+        private int retentionDays = 7;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+    }
+
+    /**
+     * The row index of a CSV file records the byte offset of one row every interval rows: a larger interval
+     * makes a smaller index, but more rows to skip to reach a given one.
+     */
+    public static class RowIndex {
+
+        private int interval = 1000;
+
+        public int getInterval() {
+            return interval;
+        }
+
+        public void setInterval(int interval) {
+            this.interval = interval;
+        }
+    }
+
+    /**
+     * When enabled, and when running on Java 21 or later, the asynchronous tasks, the scheduled jobs and the HTTP
+     * requests run on virtual threads; the pinning of a virtual thread to its carrier for longer than the threshold
+     * is recorded in the metrics.
+     */
+    public static class VirtualThreads {
+
+        private boolean enabled = false;
+
+        private long pinnedThresholdMillis = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPinnedThresholdMillis() {
+            return pinnedThresholdMillis;
+        }
+
+        public void setPinnedThresholdMillis(long pinnedThresholdMillis) {
+            this.pinnedThresholdMillis = pinnedThresholdMillis;
+        }
+    }
 }
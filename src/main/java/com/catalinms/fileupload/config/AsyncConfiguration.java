@@ -9,13 +9,18 @@ import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.*;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+import javax.annotation.PreDestroy;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 @EnableAsync
@@ -26,13 +31,23 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
 
     private final JHipsterProperties jHipsterProperties;
 
-    public AsyncConfiguration(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    private ExecutorService virtualThreadExecutor;
+
+    public AsyncConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (useVirtualThreads()) {
+            log.debug("Creating Async Task Executor on virtual threads");
+            virtualThreadExecutor = VirtualThreads.newThreadPerTaskExecutor("fileupload-Executor-");
+            return new ExceptionHandlingAsyncTaskExecutor(new ConcurrentTaskExecutor(virtualThreadExecutor));
+        }
         log.debug("Creating Async Task Executor");
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(jHipsterProperties.getAsync().getCorePoolSize());
@@ -42,6 +57,22 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * The executor of the asynchronous uploads: bounded in threads and in queued uploads, so that a burst of
+     * uploads is refused rather than exhausting the memory or the disk. It stays on platform threads even with
+     * virtual threads enabled, as its bound is what throttles the uploads.
+     */
+    @Bean(name = "ingestExecutor")
+    public TaskExecutor ingestExecutor() {
+        log.debug("Creating Ingest Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.getIngest().getParallelism());
+        executor.setMaxPoolSize(applicationProperties.getIngest().getParallelism());
+        executor.setQueueCapacity(applicationProperties.getIngest().getQueueCapacity());
+        executor.setThreadNamePrefix("fileupload-Ingest-");
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -49,11 +80,36 @@ public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer
     
     @Override
     public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
-        taskRegistrar.setScheduler(scheduledTaskExecutor());
+        taskRegistrar.setScheduler(scheduledTaskScheduler());
     }
 
     @Bean
-    public Executor scheduledTaskExecutor() {
-        return Executors.newScheduledThreadPool(jHipsterProperties.getAsync().getCorePoolSize());
+    public TaskScheduler scheduledTaskScheduler() {
+        if (useVirtualThreads()) {
+            log.debug("Creating Task Scheduler on virtual threads");
+            return new VirtualThreadTaskScheduler("fileupload-Scheduler-");
+        }
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(jHipsterProperties.getAsync().getCorePoolSize());
+        scheduler.setThreadNamePrefix("fileupload-Scheduler-");
+        return scheduler;
+    }
+
+    @PreDestroy
+    public void shutdownVirtualThreadExecutor() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+
+    private boolean useVirtualThreads() {
+        if (!applicationProperties.getVirtualThreads().isEnabled()) {
+            return false;
+        }
+        if (!VirtualThreads.isSupported()) {
+            log.warn("Virtual threads are enabled but not supported by this JVM, using platform threads");
+            return false;
+        }
+        return true;
     }
 }
@@ -1,9 +1,24 @@
 package com.catalinms.fileupload.config;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 
+import javax.annotation.PreDestroy;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import com.catalinms.fileupload.service.BlobService;
+
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 
 import io.github.jhipster.config.jcache.BeanClassLoaderAwareJCacheRegionFactory;
 import io.github.jhipster.config.JHipsterProperties;
@@ -14,23 +29,91 @@ import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.serviceregistry.Registration;
 import org.springframework.context.annotation.*;
+import org.springframework.util.FileSystemUtils;
 
+/**
+ * Cache configuration.
+ * <p>
+ * The user caches are bounded in entries, as their entries are small. The file caches are bounded in bytes
+ * instead: the File and FileContent regions only hold metadata, and file contents go to their own cache, so
+ * that the memory of each cache stays predictable whatever the size of the files.
+ * <p>
+ * File contents are cached outside of the JCache manager of Spring Boot, in a JCache manager of their own, as a
+ * disk tier needs a persistence service that the default manager is not given. Their cache has a heap, an
+ * off-heap and a local disk tier: the heap tier keeps the hottest contents, and the others keep the rest out of
+ * the garbage-collected heap. Ehcache locks the directory of the disk tier, so each application context uses a
+ * new directory under the configured location, deleted once the cache is closed. The statistics of the cache are
+ * published as JCache MXBeans, like the ones of the other caches.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
+    private static final long MAX_OBJECT_GRAPH = 1000;
+
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    private final javax.cache.configuration.Configuration<Object, Object> metadataJcacheConfiguration;
+
+    private final Duration timeToLive;
+
+    private CacheManager blobCacheManager;
+
+    private Path blobDiskLocation;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         BeanClassLoaderAwareJCacheRegionFactory.setBeanClassLoader(this.getClass().getClassLoader());
         JHipsterProperties.Cache.Ehcache ehcache =
             jHipsterProperties.getCache().getEhcache();
+        timeToLive = Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
 
         jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
             CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
                 ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
                 .build());
+
+        metadataJcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.newResourcePoolsBuilder()
+                    .heap(applicationProperties.getCache().getMetadataHeapSize(), MemoryUnit.MB))
+                .withSizeOfMaxObjectGraph(MAX_OBJECT_GRAPH)
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build());
+    }
+
+    @Bean
+    public Cache<String, byte[]> blobCache(ApplicationProperties applicationProperties) throws IOException {
+        ApplicationProperties.Cache cache = applicationProperties.getCache();
+        blobDiskLocation = Files.createTempDirectory(
+            Files.createDirectories(Paths.get(cache.getBlobDiskLocation()).toAbsolutePath()), "blobs-");
+        EhcacheCachingProvider cachingProvider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        blobCacheManager = cachingProvider.getCacheManager(blobDiskLocation.toUri(),
+            new DefaultConfiguration(getClass().getClassLoader(), new DefaultPersistenceConfiguration(blobDiskLocation.toFile())));
+        Cache<String, byte[]> blobCache = blobCacheManager.createCache(BlobService.BLOBS_CACHE,
+            Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, byte[].class,
+                    ResourcePoolsBuilder.newResourcePoolsBuilder()
+                        .heap(cache.getBlobHeapSize(), MemoryUnit.MB)
+                        .offheap(cache.getBlobOffHeapSize(), MemoryUnit.MB)
+                        // not persistent: the disk tier is emptied on restart, as blobs may be deleted meanwhile
+                        .disk(cache.getBlobDiskSize(), MemoryUnit.MB, false))
+                    .withSizeOfMaxObjectGraph(MAX_OBJECT_GRAPH)
+                    // leaves room for the header of the largest cached byte array
+                    .withSizeOfMaxObjectSize(BlobService.MAX_CACHED_BLOB_SIZE + 1024L, MemoryUnit.B)
+                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                    .build()));
+        blobCacheManager.enableStatistics(BlobService.BLOBS_CACHE, true);
+        return blobCache;
+    }
+
+    @PreDestroy
+    public void closeBlobCache() {
+        if (blobCacheManager != null) {
+            blobCacheManager.close();
+            FileSystemUtils.deleteRecursively(blobDiskLocation.toFile());
+        }
     }
 
     @Bean
@@ -41,8 +124,8 @@ public class CacheConfiguration {
             cm.createCache(com.catalinms.fileupload.domain.User.class.getName(), jcacheConfiguration);
             cm.createCache(com.catalinms.fileupload.domain.Authority.class.getName(), jcacheConfiguration);
             cm.createCache(com.catalinms.fileupload.domain.User.class.getName() + ".authorities", jcacheConfiguration);
-            cm.createCache(com.catalinms.fileupload.domain.File.class.getName(), jcacheConfiguration);
-            cm.createCache(com.catalinms.fileupload.domain.FileContent.class.getName(), jcacheConfiguration);
+            cm.createCache(com.catalinms.fileupload.domain.File.class.getName(), metadataJcacheConfiguration);
+            cm.createCache(com.catalinms.fileupload.domain.FileContent.class.getName(), metadataJcacheConfiguration);
             // jhipster-needle-ehcache-add-entry
         };
     }
@@ -1,5 +1,8 @@
 package com.catalinms.fileupload.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
@@ -25,9 +28,12 @@ public class LiquibaseConfiguration {
 
     private final CacheManager cacheManager;
 
-    public LiquibaseConfiguration(Environment env, CacheManager cacheManager) {
+    private final ApplicationProperties applicationProperties;
+
+    public LiquibaseConfiguration(Environment env, CacheManager cacheManager, ApplicationProperties applicationProperties) {
         this.env = env;
         this.cacheManager = cacheManager;
+        this.applicationProperties = applicationProperties;
     }
 
     @Bean
@@ -41,7 +47,7 @@ public class LiquibaseConfiguration {
         liquibase.setContexts(liquibaseProperties.getContexts());
         liquibase.setDefaultSchema(liquibaseProperties.getDefaultSchema());
         liquibase.setDropFirst(liquibaseProperties.isDropFirst());
-        liquibase.setChangeLogParameters(liquibaseProperties.getParameters());
+        liquibase.setChangeLogParameters(getChangeLogParameters(liquibaseProperties));
         if (env.acceptsProfiles(JHipsterConstants.SPRING_PROFILE_NO_LIQUIBASE)) {
             liquibase.setShouldRun(false);
         } else {
@@ -50,4 +56,17 @@ public class LiquibaseConfiguration {
         }
         return liquibase;
     }
+
+    /**
+     * The changelog parameters, with the blob store the contents of the database are moved to.
+     */
+    private Map<String, String> getChangeLogParameters(LiquibaseProperties liquibaseProperties) {
+        Map<String, String> parameters = new HashMap<>();
+        if (liquibaseProperties.getParameters() != null) {
+            parameters.putAll(liquibaseProperties.getParameters());
+        }
+        parameters.put("blobStoreType", applicationProperties.getStorage().getType().name());
+        parameters.put("blobStoreLocation", applicationProperties.getStorage().getLocation());
+        return parameters;
+    }
 }
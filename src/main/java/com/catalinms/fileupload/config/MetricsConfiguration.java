@@ -25,6 +25,7 @@ import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
+import javax.cache.Cache;
 import javax.servlet.ServletContext;
 import java.lang.management.ManagementFactory;
 import java.util.concurrent.TimeUnit;
@@ -52,9 +53,10 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter implements Se
 
     private HikariDataSource hikariDataSource;
 
-    // The cacheManager is injected here to force its initialization, so the JCacheGaugeSet
-    // will be correctly created below.
-    public MetricsConfiguration(JHipsterProperties jHipsterProperties, CacheManager cacheManager) {
+    // The cacheManager and blobCache are injected here to force their initialization, so the JCacheGaugeSet
+    // will be correctly created below, with the statistics of the blob cache.
+    public MetricsConfiguration(JHipsterProperties jHipsterProperties, CacheManager cacheManager,
+                                Cache<String, byte[]> blobCache) {
         this.jHipsterProperties = jHipsterProperties;
     }
 
@@ -104,6 +104,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/api/activate").permitAll()
             .antMatchers("/api/files/**").permitAll()
             .antMatchers("/api/file-contents/**").permitAll()
+            .antMatchers("/api/blobs/**").permitAll()
+            .antMatchers("/api/upload-sessions/**").permitAll()
             .antMatchers("/api/authenticate").permitAll()
             .antMatchers("/api/account/reset-password/init").permitAll()
             .antMatchers("/api/account/reset-password/finish").permitAll()
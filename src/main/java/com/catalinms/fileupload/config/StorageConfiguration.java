@@ -0,0 +1,36 @@
+package com.catalinms.fileupload.config;
+
+import com.catalinms.fileupload.service.storage.BlobStore;
+import com.catalinms.fileupload.service.storage.FileSystemBlobStore;
+import com.catalinms.fileupload.service.storage.InMemoryBlobStore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(StorageConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    public StorageConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    public BlobStore blobStore() throws IOException {
+        ApplicationProperties.Storage storage = applicationProperties.getStorage();
+        if (storage.getType() == ApplicationProperties.Storage.Type.MEMORY) {
+            log.warn("Using the in-memory blob store, file contents will be lost on restart");
+            return new InMemoryBlobStore();
+        }
+        log.debug("Storing blobs in {}", storage.getLocation());
+        return new FileSystemBlobStore(Paths.get(storage.getLocation()));
+    }
+}
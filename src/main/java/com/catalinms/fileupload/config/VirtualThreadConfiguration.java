@@ -0,0 +1,68 @@
+package com.catalinms.fileupload.config;
+
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the HTTP requests on virtual threads, so that the blocking uploads and downloads no longer hold a worker
+ * thread each, and records the pinning of virtual threads to their carrier. The asynchronous tasks and the
+ * scheduled jobs are moved to virtual threads by {@link AsyncConfiguration}.
+ * <p>
+ * Only active with the "application.virtual-threads.enabled" property, and when running on Java 21 or later.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The executor of the requests, or null if virtual threads are not supported.
+     */
+    private final ExecutorService requestExecutor;
+
+    public VirtualThreadConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+        if (VirtualThreads.isSupported()) {
+            this.requestExecutor = VirtualThreads.newThreadPerTaskExecutor("fileupload-Request-");
+        } else {
+            this.requestExecutor = null;
+            log.warn("Virtual threads are enabled but not supported by this JVM, serving requests on platform threads");
+        }
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> virtualThreadWebServerCustomizer() {
+        return server -> {
+            if (requestExecutor != null) {
+                log.debug("Serving requests on virtual threads");
+                server.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.setExecutor(requestExecutor));
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdownRequestExecutor() {
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MetricRegistry metricRegistry) {
+        Duration threshold = Duration.ofMillis(applicationProperties.getVirtualThreads().getPinnedThresholdMillis());
+        return new VirtualThreadPinningMonitor(metricRegistry, threshold);
+    }
+}
@@ -0,0 +1,71 @@
+package com.catalinms.fileupload.config;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Records the virtual threads pinned to their carrier thread, from the jdk.VirtualThreadPinned events of a JFR
+ * recording stream, in the {@value #PINNED_TIMER} timer: its count is the number of pinning episodes longer than
+ * the threshold, and its durations how long the carrier thread was blocked.
+ * <p>
+ * The JFR streaming API is used by reflection, as the application is built for Java 8.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    public static final String PINNED_TIMER = "virtualThreads.pinned";
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private final Object recordingStream;
+
+    public VirtualThreadPinningMonitor(MetricRegistry metricRegistry, Duration threshold) {
+        Timer pinned = metricRegistry.timer(PINNED_TIMER);
+        Object stream = null;
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Method getDuration = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getDuration");
+            stream = streamClass.getConstructor().newInstance();
+            Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class).invoke(settings, threshold);
+            Consumer<Object> onPinned = event -> {
+                try {
+                    pinned.update(((Duration) getDuration.invoke(event)).toNanos(), TimeUnit.NANOSECONDS);
+                } catch (ReflectiveOperationException e) {
+                    log.debug("Could not read the duration of a pinned virtual thread", e);
+                }
+            };
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, onPinned);
+            streamClass.getMethod("startAsync").invoke(stream);
+            log.debug("Monitoring the pinning of virtual threads longer than {}", threshold);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Could not monitor the pinning of virtual threads: {}", e.toString());
+            closeQuietly(stream);
+            stream = null;
+        }
+        this.recordingStream = stream;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(recordingStream);
+    }
+
+    private void closeQuietly(Object stream) {
+        if (stream instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) stream).close();
+            } catch (Exception e) {
+                log.debug("Could not close the recording stream", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.catalinms.fileupload.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+import org.springframework.scheduling.support.TaskUtils;
+
+import java.util.Date;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A scheduler whose single platform thread only keeps the time: each run of a scheduled task is handed to a new
+ * virtual thread, so the number of tasks running at once is not bounded by a pool. The next run of a repeating
+ * task is only scheduled once its current run completes, so that its runs never overlap: a run outlasting the
+ * period of a fixed rate task delays the next one, as with a thread pool scheduler.
+ */
+final class VirtualThreadTaskScheduler implements TaskScheduler, DisposableBean {
+
+    private final ScheduledExecutorService timer;
+
+    private final ExecutorService executor;
+
+    VirtualThreadTaskScheduler(String namePrefix) {
+        this(namePrefix, VirtualThreads.newThreadPerTaskExecutor(namePrefix));
+    }
+
+    /**
+     * Create a scheduler running the tasks on the given executor, which is shut down with the scheduler.
+     */
+    VirtualThreadTaskScheduler(String namePrefix, ExecutorService executor) {
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = executor;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+        return new ReschedulingTask(task, trigger).schedule();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+        Runnable decorated = TaskUtils.decorateTaskWithErrorHandler(task, null, false);
+        return timer.schedule(() -> executor.execute(decorated), startTime.getTime() - System.currentTimeMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+        return schedule(task, periodicTrigger(startTime, period, true));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+        return scheduleAtFixedRate(task, new Date(), period);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+        return schedule(task, periodicTrigger(startTime, delay, false));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+        return scheduleWithFixedDelay(task, new Date(), delay);
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    private static Trigger periodicTrigger(Date startTime, long period, boolean fixedRate) {
+        PeriodicTrigger trigger = new PeriodicTrigger(period, TimeUnit.MILLISECONDS);
+        trigger.setInitialDelay(Math.max(0, startTime.getTime() - System.currentTimeMillis()));
+        trigger.setFixedRate(fixedRate);
+        return trigger;
+    }
+
+    /**
+     * A repeating task, run on the executor at each time of its trigger. The trigger is only asked for the next
+     * time once a run completes, like the thread pool schedulers do.
+     */
+    private final class ReschedulingTask implements Runnable, ScheduledFuture<Object> {
+
+        private final Runnable task;
+
+        private final Trigger trigger;
+
+        private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+
+        private final Object mutex = new Object();
+
+        private ScheduledFuture<?> currentFuture;
+
+        private Date scheduledExecutionTime;
+
+        private boolean cancelled;
+
+        private ReschedulingTask(Runnable task, Trigger trigger) {
+            this.task = TaskUtils.decorateTaskWithErrorHandler(task, null, true);
+            this.trigger = trigger;
+        }
+
+        /**
+         * Schedule the next run of the task.
+         *
+         * @return this task, or null if its trigger has no next time
+         */
+        private ScheduledFuture<?> schedule() {
+            synchronized (mutex) {
+                scheduledExecutionTime = trigger.nextExecutionTime(triggerContext);
+                if (scheduledExecutionTime == null) {
+                    return null;
+                }
+                long delay = scheduledExecutionTime.getTime() - System.currentTimeMillis();
+                currentFuture = timer.schedule(() -> executor.execute(this), delay, TimeUnit.MILLISECONDS);
+                return this;
+            }
+        }
+
+        @Override
+        public void run() {
+            Date actualExecutionTime = new Date();
+            task.run();
+            Date completionTime = new Date();
+            synchronized (mutex) {
+                triggerContext.update(scheduledExecutionTime, actualExecutionTime, completionTime);
+                if (!cancelled) {
+                    schedule();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (mutex) {
+                if (cancelled) {
+                    return false;
+                }
+                cancelled = true;
+                currentFuture.cancel(mayInterruptIfRunning);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            synchronized (mutex) {
+                return cancelled;
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            synchronized (mutex) {
+                return cancelled || scheduledExecutionTime == null;
+            }
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            ScheduledFuture<?> future;
+            synchronized (mutex) {
+                future = currentFuture;
+            }
+            return future.get();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            ScheduledFuture<?> future;
+            synchronized (mutex) {
+                future = currentFuture;
+            }
+            return future.get(timeout, unit);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            ScheduledFuture<?> future;
+            synchronized (mutex) {
+                future = currentFuture;
+            }
+            return future.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (this == other) {
+                return 0;
+            }
+            long diff = getDelay(TimeUnit.MILLISECONDS) - other.getDelay(TimeUnit.MILLISECONDS);
+            return diff == 0 ? 0 : (diff < 0 ? -1 : 1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.catalinms.fileupload.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Factories of virtual threads, found by reflection as the application is built for Java 8: they are only
+ * available when it runs on Java 21 or later.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Check whether the running JVM supports virtual threads.
+     *
+     * @return true if virtual threads can be created
+     */
+    static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create a factory of virtual threads, named with a prefix and a counter.
+     *
+     * @param namePrefix the prefix of the thread names
+     * @return the thread factory
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    static ThreadFactory threadFactory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported by this JVM", e);
+        }
+    }
+
+    /**
+     * Create an executor running each task on a new virtual thread.
+     *
+     * @param namePrefix the prefix of the thread names
+     * @return the executor
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, threadFactory(namePrefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported by this JVM", e);
+        }
+    }
+}
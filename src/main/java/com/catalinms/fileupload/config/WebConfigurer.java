@@ -1,5 +1,7 @@
 package com.catalinms.fileupload.config;
 
+import com.catalinms.fileupload.web.filter.ImmutableCachingHttpHeadersFilter;
+
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.servlet.InstrumentedFilter;
 import com.codahale.metrics.servlets.MetricsServlet;
@@ -61,6 +63,7 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
         if (env.acceptsProfiles(JHipsterConstants.SPRING_PROFILE_PRODUCTION)) {
             initCachingHttpHeadersFilter(servletContext, disps);
         }
+        initImmutableCachingHttpHeadersFilter(servletContext, disps);
         log.info("Web application fully configured");
     }
 
@@ -148,6 +151,20 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
         cachingHttpHeadersFilter.setAsyncSupported(true);
     }
 
+    /**
+     * Initializes the caching HTTP Headers Filter of the content-addressed resources.
+     */
+    private void initImmutableCachingHttpHeadersFilter(ServletContext servletContext,
+                                                       EnumSet<DispatcherType> disps) {
+        log.debug("Registering Immutable Caching HTTP Headers Filter");
+        FilterRegistration.Dynamic immutableCachingHttpHeadersFilter =
+            servletContext.addFilter("immutableCachingHttpHeadersFilter",
+                new ImmutableCachingHttpHeadersFilter());
+
+        immutableCachingHttpHeadersFilter.addMappingForUrlPatterns(disps, true, "/api/blobs/*");
+        immutableCachingHttpHeadersFilter.setAsyncSupported(true);
+    }
+
     /**
      * Initializes Metrics.
      */
@@ -0,0 +1,144 @@
+package com.catalinms.fileupload.config.liquibase;
+
+import com.catalinms.fileupload.config.ApplicationProperties;
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.storage.FileSystemBlobStore;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the contents still held in the "content" column of a table to the blob store, filling in its
+ * "blob_key", "content_size" and "content_hash" columns, so that the column can then be dropped.
+ * <p>
+ * The rows are migrated one at a time, so that a single content is in memory at once. The blob store is
+ * given by the "storageType" and "storageLocation" parameters, set from the application properties by
+ * {@link com.catalinms.fileupload.config.LiquibaseConfiguration}; a memory store can only be used when there
+ * is nothing to migrate, as its blobs would not outlive the application.
+ */
+public class MoveContentsToBlobStore implements CustomTaskChange {
+
+    private final Logger log = LoggerFactory.getLogger(MoveContentsToBlobStore.class);
+
+    private String tableName;
+
+    private String storageType;
+
+    private String storageLocation;
+
+    private int migratedCount;
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public void setStorageType(String storageType) {
+        this.storageType = storageType;
+    }
+
+    public void setStorageLocation(String storageLocation) {
+        this.storageLocation = storageLocation;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try {
+            List<Long> ids = findIdsToMigrate(connection);
+            if (ids.isEmpty()) {
+                return;
+            }
+            BlobService blobService = new BlobService(createBlobStore());
+            try (PreparedStatement select = connection.prepareStatement(
+                    "select content, content_content_type from " + tableName + " where id = ?");
+                 PreparedStatement update = connection.prepareStatement(
+                    "update " + tableName + " set blob_key = ?, content_size = ?, content_hash = ? where id = ?")) {
+                for (Long id : ids) {
+                    StoredBlob blob;
+                    select.setLong(1, id);
+                    try (ResultSet row = select.executeQuery()) {
+                        row.next();
+                        try (InputStream content = row.getBinaryStream("content")) {
+                            blob = blobService.store(content, row.getString("content_content_type"));
+                        }
+                    }
+                    update.setString(1, blob.getKey());
+                    update.setLong(2, blob.getSize());
+                    update.setString(3, blob.getHash());
+                    update.setLong(4, id);
+                    update.executeUpdate();
+                    migratedCount++;
+                    log.debug("Moved the content of {} {} to blob {}", tableName, id, blob.getKey());
+                }
+            }
+        } catch (DatabaseException | SQLException | IOException | UncheckedIOException e) {
+            throw new CustomChangeException("Failed to move the contents of " + tableName + " to the blob store", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Moved " + migratedCount + " contents of " + tableName + " to the blob store";
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("tableName", tableName);
+        return errors;
+    }
+
+    private List<Long> findIdsToMigrate(JdbcConnection connection) throws DatabaseException, SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id from " + tableName + " where content is not null and blob_key is null order by id");
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private FileSystemBlobStore createBlobStore() throws CustomChangeException, IOException {
+        if (ApplicationProperties.Storage.Type.MEMORY.name().equalsIgnoreCase(storageType)) {
+            throw new CustomChangeException("Cannot move the contents of " + tableName + " to a memory blob store");
+        }
+        String location = isSet(storageLocation) ? storageLocation : new ApplicationProperties.Storage().getLocation();
+        return new FileSystemBlobStore(Paths.get(location));
+    }
+
+    /**
+     * Check whether a parameter was given, as Liquibase leaves the placeholders of missing parameters as they are.
+     */
+    private static boolean isSet(String parameter) {
+        return parameter != null && !parameter.isEmpty() && !parameter.startsWith("${");
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase specific code.
+ */
+package com.catalinms.fileupload.config.liquibase;
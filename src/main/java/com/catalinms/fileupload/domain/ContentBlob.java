@@ -0,0 +1,152 @@
+package com.catalinms.fileupload.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A ContentBlob: a blob of the blob store, shared by all the files with the same content.
+ * <p>
+ * The blob is deleted once no file references it anymore, with the row index of a CSV content.
+ */
+@Entity
+@Table(name = "content_blob")
+public class ContentBlob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "contentBlobIdGenerator")
+    @TableGenerator(name = "contentBlobIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "content_blob", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(name = "content_hash", length = 64, nullable = false, unique = true)
+    private String contentHash;
+
+    @NotNull
+    @Column(name = "blob_key", nullable = false, unique = true)
+    private String blobKey;
+
+    @NotNull
+    @Column(name = "content_size", nullable = false)
+    private Long contentSize;
+
+    @NotNull
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount;
+
+    /**
+     * The key of the blob holding the row index of a CSV content, or null if the content is not indexed.
+     */
+    @Column(name = "row_index_key")
+    private String rowIndexKey;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public ContentBlob contentHash(String contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getBlobKey() {
+        return blobKey;
+    }
+
+    public ContentBlob blobKey(String blobKey) {
+        this.blobKey = blobKey;
+        return this;
+    }
+
+    public void setBlobKey(String blobKey) {
+        this.blobKey = blobKey;
+    }
+
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public ContentBlob contentSize(Long contentSize) {
+        this.contentSize = contentSize;
+        return this;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public Long getRefCount() {
+        return refCount;
+    }
+
+    public ContentBlob refCount(Long refCount) {
+        this.refCount = refCount;
+        return this;
+    }
+
+    public void setRefCount(Long refCount) {
+        this.refCount = refCount;
+    }
+
+    public String getRowIndexKey() {
+        return rowIndexKey;
+    }
+
+    public ContentBlob rowIndexKey(String rowIndexKey) {
+        this.rowIndexKey = rowIndexKey;
+        return this;
+    }
+
+    public void setRowIndexKey(String rowIndexKey) {
+        this.rowIndexKey = rowIndexKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ContentBlob contentBlob = (ContentBlob) o;
+        if (contentBlob.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), contentBlob.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "ContentBlob{" +
+            "id=" + getId() +
+            ", contentHash='" + getContentHash() + "'" +
+            ", blobKey='" + getBlobKey() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", refCount=" + getRefCount() +
+            ", rowIndexKey='" + getRowIndexKey() + "'" +
+            "}";
+    }
+}
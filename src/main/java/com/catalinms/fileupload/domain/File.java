@@ -20,16 +20,23 @@ public class File implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fileIdGenerator")
+    @TableGenerator(name = "fileIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "file", allocationSize = 50)
     private Long id;
 
     @NotNull
     @Column(name = "name", nullable = false)
     private String name;
 
-    @Lob
-    @Column(name = "content")
-    private byte[] content;
+    @Column(name = "blob_key")
+    private String blobKey;
+
+    @Column(name = "content_size")
+    private Long contentSize;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
 
     @Column(name = "content_content_type")
     private String contentContentType;
@@ -56,17 +63,43 @@ public class File implements Serializable {
         this.name = name;
     }
 
-    public byte[] getContent() {
-        return content;
+    public String getBlobKey() {
+        return blobKey;
+    }
+
+    public File blobKey(String blobKey) {
+        this.blobKey = blobKey;
+        return this;
+    }
+
+    public void setBlobKey(String blobKey) {
+        this.blobKey = blobKey;
+    }
+
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public File contentSize(Long contentSize) {
+        this.contentSize = contentSize;
+        return this;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
     }
 
-    public File content(byte[] content) {
-        this.content = content;
+    public File contentHash(String contentHash) {
+        this.contentHash = contentHash;
         return this;
     }
 
-    public void setContent(byte[] content) {
-        this.content = content;
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
     }
 
     public String getContentContentType() {
@@ -108,7 +141,8 @@ public class File implements Serializable {
         return "File{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
-            ", content='" + getContent() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", contentHash='" + getContentHash() + "'" +
             ", contentContentType='" + getContentContentType() + "'" +
             "}";
     }
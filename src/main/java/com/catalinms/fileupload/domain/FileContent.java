@@ -1,5 +1,6 @@
 package com.catalinms.fileupload.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -20,28 +21,32 @@ public class FileContent implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fileContentIdGenerator")
+    @TableGenerator(name = "fileContentIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "file_content", allocationSize = 50)
     private Long id;
 
     @NotNull
     @Column(name = "name", nullable = false)
     private String name;
 
-    @Lob
-    @Column(name = "content", nullable = false)
-    private byte[] content;
+    /**
+     * The content is kept in the blob store, and only loaded on demand.
+     */
+    private transient byte[] content;
 
-    @Column(name = "content_content_type", nullable = false)
-    private String contentContentType;
+    @JsonIgnore
+    @Column(name = "blob_key")
+    private String blobKey;
 
-    public FileContent() {
-    }
+    @Column(name = "content_size")
+    private Long contentSize;
 
-    public FileContent(@NotNull String name, byte[] content, String contentContentType) {
-        this.name = name;
-        this.content = content;
-        this.contentContentType = contentContentType;
-    }
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "content_content_type", nullable = false)
+    private String contentContentType;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
     public Long getId() {
@@ -78,6 +83,45 @@ public class FileContent implements Serializable {
         this.content = content;
     }
 
+    public String getBlobKey() {
+        return blobKey;
+    }
+
+    public FileContent blobKey(String blobKey) {
+        this.blobKey = blobKey;
+        return this;
+    }
+
+    public void setBlobKey(String blobKey) {
+        this.blobKey = blobKey;
+    }
+
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public FileContent contentSize(Long contentSize) {
+        this.contentSize = contentSize;
+        return this;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public FileContent contentHash(String contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getContentContentType() {
         return contentContentType;
     }
@@ -117,7 +161,8 @@ public class FileContent implements Serializable {
         return "FileContent{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
-            ", content='" + getContent() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", contentHash='" + getContentHash() + "'" +
             ", contentContentType='" + getContentContentType() + "'" +
             "}";
     }
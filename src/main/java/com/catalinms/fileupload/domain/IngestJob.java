@@ -0,0 +1,180 @@
+package com.catalinms.fileupload.domain;
+
+import com.catalinms.fileupload.domain.enumeration.IngestJobStatus;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An IngestJob: a file received in a staging file, and stored as a FileContent in the background. The job
+ * keeps its status once done, with the id of the created FileContent or the reason of its failure.
+ */
+@Entity
+@Table(name = "ingest_job")
+public class IngestJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int ERROR_MESSAGE_MAX_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "content_content_type")
+    private String contentContentType;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private IngestJobStatus status;
+
+    @Column(name = "file_content_id")
+    private Long fileContentId;
+
+    @Size(max = ERROR_MESSAGE_MAX_LENGTH)
+    @Column(name = "error_message", length = ERROR_MESSAGE_MAX_LENGTH)
+    private String errorMessage;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private Instant createdDate = Instant.now();
+
+    @Column(name = "completed_date")
+    private Instant completedDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public IngestJob name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getContentContentType() {
+        return contentContentType;
+    }
+
+    public IngestJob contentContentType(String contentContentType) {
+        this.contentContentType = contentContentType;
+        return this;
+    }
+
+    public void setContentContentType(String contentContentType) {
+        this.contentContentType = contentContentType;
+    }
+
+    public IngestJobStatus getStatus() {
+        return status;
+    }
+
+    public IngestJob status(IngestJobStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public void setStatus(IngestJobStatus status) {
+        this.status = status;
+    }
+
+    public Long getFileContentId() {
+        return fileContentId;
+    }
+
+    public IngestJob fileContentId(Long fileContentId) {
+        this.fileContentId = fileContentId;
+        return this;
+    }
+
+    public void setFileContentId(Long fileContentId) {
+        this.fileContentId = fileContentId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public IngestJob errorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+        return this;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getCompletedDate() {
+        return completedDate;
+    }
+
+    public IngestJob completedDate(Instant completedDate) {
+        this.completedDate = completedDate;
+        return this;
+    }
+
+    public void setCompletedDate(Instant completedDate) {
+        this.completedDate = completedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IngestJob ingestJob = (IngestJob) o;
+        if (ingestJob.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), ingestJob.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "IngestJob{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", contentContentType='" + getContentContentType() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", fileContentId=" + getFileContentId() +
+            ", errorMessage='" + getErrorMessage() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", completedDate='" + getCompletedDate() + "'" +
+            "}";
+    }
+}
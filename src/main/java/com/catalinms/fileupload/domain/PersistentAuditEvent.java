@@ -20,7 +20,9 @@ public class PersistentAuditEvent implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "persistentAuditEventIdGenerator")
+    @TableGenerator(name = "persistentAuditEventIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "jhi_persistent_audit_event", allocationSize = 50)
     @Column(name = "event_id")
     private Long id;
 
@@ -0,0 +1,172 @@
+package com.catalinms.fileupload.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An UploadSession: a file uploaded in several chunks, whose received bytes are kept in a staging file
+ * until the upload is complete. The chunks are either sent one after the other, or, when the session has
+ * a chunk size, in any order and in parallel.
+ */
+@Entity
+@Table(name = "upload_session")
+public class UploadSession implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @NotNull
+    @Column(name = "content_content_type", nullable = false)
+    private String contentContentType;
+
+    @NotNull
+    @Min(value = 0L)
+    @Column(name = "content_size", nullable = false)
+    private Long contentSize;
+
+    /**
+     * The size of the chunks of a session uploaded in parallel, or null if the session is uploaded sequentially.
+     */
+    @Min(value = 1)
+    @Column(name = "chunk_size")
+    private Integer chunkSize;
+
+    /**
+     * The number of bytes received and flushed to the staging file: from its start for a sequential session,
+     * or in all its received chunks for a parallel one.
+     */
+    @Column(name = "committed_size", nullable = false)
+    private Long committedSize = 0L;
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private Instant createdDate = Instant.now();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public UploadSession name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getContentContentType() {
+        return contentContentType;
+    }
+
+    public UploadSession contentContentType(String contentContentType) {
+        this.contentContentType = contentContentType;
+        return this;
+    }
+
+    public void setContentContentType(String contentContentType) {
+        this.contentContentType = contentContentType;
+    }
+
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public UploadSession contentSize(Long contentSize) {
+        this.contentSize = contentSize;
+        return this;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    public UploadSession chunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Long getCommittedSize() {
+        return committedSize;
+    }
+
+    public UploadSession committedSize(Long committedSize) {
+        this.committedSize = committedSize;
+        return this;
+    }
+
+    public void setCommittedSize(Long committedSize) {
+        this.committedSize = committedSize;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public boolean isComplete() {
+        return Objects.equals(committedSize, contentSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UploadSession uploadSession = (UploadSession) o;
+        if (uploadSession.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), uploadSession.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "UploadSession{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", contentContentType='" + getContentContentType() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", chunkSize=" + getChunkSize() +
+            ", committedSize=" + getCommittedSize() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,93 @@
+package com.catalinms.fileupload.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * An UploadSessionChunk: a chunk received by a parallel UploadSession, and written to its staging file.
+ */
+@Entity
+@Table(name = "upload_session_chunk",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"upload_session_id", "chunk_index"}))
+public class UploadSessionChunk implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "upload_session_id", nullable = false)
+    private UploadSession uploadSession;
+
+    @NotNull
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UploadSession getUploadSession() {
+        return uploadSession;
+    }
+
+    public UploadSessionChunk uploadSession(UploadSession uploadSession) {
+        this.uploadSession = uploadSession;
+        return this;
+    }
+
+    public void setUploadSession(UploadSession uploadSession) {
+        this.uploadSession = uploadSession;
+    }
+
+    public Integer getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public UploadSessionChunk chunkIndex(Integer chunkIndex) {
+        this.chunkIndex = chunkIndex;
+        return this;
+    }
+
+    public void setChunkIndex(Integer chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UploadSessionChunk uploadSessionChunk = (UploadSessionChunk) o;
+        if (uploadSessionChunk.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), uploadSessionChunk.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "UploadSessionChunk{" +
+            "id=" + getId() +
+            ", chunkIndex=" + getChunkIndex() +
+            "}";
+    }
+}
@@ -0,0 +1,8 @@
+package com.catalinms.fileupload.domain.enumeration;
+
+/**
+ * The IngestJobStatus enumeration.
+ */
+public enum IngestJobStatus {
+    QUEUED, PROCESSING, COMPLETED, FAILED
+}
@@ -0,0 +1,4 @@
+/**
+ * Enumerations of the JPA domain objects.
+ */
+package com.catalinms.fileupload.domain.enumeration;
@@ -0,0 +1,43 @@
+package com.catalinms.fileupload.repository;
+
+import com.catalinms.fileupload.domain.ContentBlob;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Spring Data  repository for the ContentBlob entity.
+ * <p>
+ * Reference counts are always updated under a row lock, so a blob is never released by one transaction
+ * while another one starts referencing it. Rows are only locked once they exist: under MySQL's REPEATABLE READ, a
+ * locking read of a missing hash holds a gap lock, which blocks the insert of that hash by any other transaction.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, Long> {
+
+    Optional<ContentBlob> findOneByContentHash(String contentHash);
+
+    Optional<ContentBlob> findOneByBlobKey(String blobKey);
+
+    @Query("select b.contentHash from ContentBlob b where b.contentHash in :contentHashes")
+    List<String> findContentHashesIn(@Param("contentHashes") Collection<String> contentHashes);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from ContentBlob b where b.contentHash = :contentHash")
+    Optional<ContentBlob> findByContentHashForUpdate(@Param("contentHash") String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from ContentBlob b where b.contentHash in :contentHashes")
+    List<ContentBlob> findAllByContentHashInForUpdate(@Param("contentHashes") Collection<String> contentHashes);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from ContentBlob b where b.blobKey = :blobKey")
+    Optional<ContentBlob> findByBlobKeyForUpdate(@Param("blobKey") String blobKey);
+}
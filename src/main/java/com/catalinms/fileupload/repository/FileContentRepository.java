@@ -1,9 +1,18 @@
 package com.catalinms.fileupload.repository;
 
 import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 
 /**
  * Spring Data  repository for the FileContent entity.
@@ -12,4 +21,27 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface FileContentRepository extends JpaRepository<FileContent, Long> {
 
+    String SUMMARY_SELECT = "select new com.catalinms.fileupload.service.dto.FileSummaryDTO(" +
+        "f.id, f.name, f.contentContentType, f.contentSize, f.contentHash, f.blobKey) from FileContent f";
+
+    /**
+     * Keyset pagination: the page starts right after the given id, so the database seeks directly to it
+     * through the primary key index instead of skipping an offset.
+     */
+    @Query(SUMMARY_SELECT + " where f.id > :afterId order by f.id")
+    Slice<FileSummaryDTO> findSummariesByIdAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Streams all the summaries from a database cursor, fetching them a few rows at a time. The stream must be
+     * consumed and closed within a transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "100"))
+    @Query(SUMMARY_SELECT + " order by f.id")
+    Stream<FileSummaryDTO> streamAllSummaries();
+
+    @Query(SUMMARY_SELECT + " where f.id = :id")
+    Optional<FileSummaryDTO> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT + " where f.contentHash = :contentHash order by f.id")
+    List<FileSummaryDTO> findSummariesByContentHash(@Param("contentHash") String contentHash, Pageable pageable);
 }
@@ -0,0 +1,23 @@
+package com.catalinms.fileupload.repository;
+
+import com.catalinms.fileupload.domain.IngestJob;
+import com.catalinms.fileupload.domain.enumeration.IngestJobStatus;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Spring Data  repository for the IngestJob entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface IngestJobRepository extends JpaRepository<IngestJob, Long> {
+
+    List<IngestJob> findAllByCreatedDateBefore(Instant dateTime);
+
+    List<IngestJob> findAllByStatusIn(Collection<IngestJobStatus> statuses);
+}
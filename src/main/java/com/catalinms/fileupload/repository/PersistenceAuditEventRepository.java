@@ -3,10 +3,14 @@ package com.catalinms.fileupload.repository;
 import com.catalinms.fileupload.domain.PersistentAuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for the PersistentAuditEvent entity.
@@ -22,4 +26,12 @@ public interface PersistenceAuditEventRepository extends JpaRepository<Persisten
     List<PersistentAuditEvent> findByPrincipalAndAuditEventDateAfterAndAuditEventType(String principal, Instant after, String type);
 
     Page<PersistentAuditEvent> findAllByAuditEventDateBetween(Instant fromDate, Instant toDate, Pageable pageable);
+
+    /**
+     * Streams all the events, with their data, from a database cursor fetching them a few rows at a time. The stream
+     * must be consumed and closed within a transaction.
+     */
+    @EntityGraph(attributePaths = "data")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<PersistentAuditEvent> streamAllByOrderByIdAsc();
 }
@@ -0,0 +1,26 @@
+package com.catalinms.fileupload.repository;
+
+import com.catalinms.fileupload.domain.UploadSessionChunk;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+
+/**
+ * Spring Data  repository for the UploadSessionChunk entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface UploadSessionChunkRepository extends JpaRepository<UploadSessionChunk, Long> {
+
+    boolean existsByUploadSessionIdAndChunkIndex(Long uploadSessionId, Integer chunkIndex);
+
+    @Query("select c.chunkIndex from UploadSessionChunk c where c.uploadSession.id = :uploadSessionId order by c.chunkIndex")
+    List<Integer> findChunkIndexesByUploadSessionId(@Param("uploadSessionId") Long uploadSessionId);
+
+    @Modifying
+    @Query("delete from UploadSessionChunk c where c.uploadSession.id = :uploadSessionId")
+    void deleteByUploadSessionId(@Param("uploadSessionId") Long uploadSessionId);
+}
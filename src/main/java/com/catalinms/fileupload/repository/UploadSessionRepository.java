@@ -0,0 +1,48 @@
+package com.catalinms.fileupload.repository;
+
+import com.catalinms.fileupload.domain.UploadSession;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * Spring Data  repository for the UploadSession entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    /**
+     * Lock the session until the end of the transaction, so it is not completed or deleted twice at the same time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UploadSession s where s.id = :id")
+    Optional<UploadSession> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Add the size of a received chunk in a single update, so chunks received in parallel do not lock the session
+     * while they are written.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update UploadSession s set s.committedSize = s.committedSize + :size where s.id = :id")
+    int addCommittedSize(@Param("id") Long id, @Param("size") long size);
+
+    /**
+     * Commit an appended chunk only if no other chunk was committed since the session was read, so the session is not
+     * locked while the chunk is written.
+     *
+     * @return 1 if the committed size was updated, 0 if it no longer matched the offset of the chunk
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update UploadSession s set s.committedSize = :committedSize where s.id = :id and s.committedSize = :offset")
+    int compareAndSetCommittedSize(@Param("id") Long id, @Param("offset") long offset,
+                                   @Param("committedSize") long committedSize);
+
+    List<UploadSession> findAllByCreatedDateBefore(Instant dateTime);
+}
@@ -1,6 +1,7 @@
 package com.catalinms.fileupload.service;
 
 import com.catalinms.fileupload.config.audit.AuditEventConverter;
+import com.catalinms.fileupload.domain.PersistentAuditEvent;
 import com.catalinms.fileupload.repository.PersistenceAuditEventRepository;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
@@ -8,8 +9,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service for managing audit events.
@@ -24,12 +28,16 @@ public class AuditEventService {
 
     private final AuditEventConverter auditEventConverter;
 
+    private final EntityManager entityManager;
+
     public AuditEventService(
         PersistenceAuditEventRepository persistenceAuditEventRepository,
-        AuditEventConverter auditEventConverter) {
+        AuditEventConverter auditEventConverter,
+        EntityManager entityManager) {
 
         this.persistenceAuditEventRepository = persistenceAuditEventRepository;
         this.auditEventConverter = auditEventConverter;
+        this.entityManager = entityManager;
     }
 
     public Page<AuditEvent> findAll(Pageable pageable) {
@@ -37,6 +45,23 @@ public class AuditEventService {
             .map(auditEventConverter::convertToAuditEvent);
     }
 
+    /**
+     * Pass all the audit events, ordered by id, to an action as they are read from a database cursor. Each event
+     * is detached once converted, so the persistence context does not grow with the number of events.
+     *
+     * @param action the action performed on each event
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<AuditEvent> action) {
+        try (Stream<PersistentAuditEvent> events = persistenceAuditEventRepository.streamAllByOrderByIdAsc()) {
+            events.forEach(event -> {
+                AuditEvent auditEvent = auditEventConverter.convertToAuditEvent(event);
+                entityManager.detach(event);
+                action.accept(auditEvent);
+            });
+        }
+    }
+
     public Page<AuditEvent> findByDates(Instant fromDate, Instant toDate, Pageable pageable) {
         return persistenceAuditEventRepository.findAllByAuditEventDateBetween(fromDate, toDate, pageable)
             .map(auditEventConverter::convertToAuditEvent);
@@ -0,0 +1,474 @@
+package com.catalinms.fileupload.service;
+
+import com.catalinms.fileupload.service.storage.BlobCodec;
+import com.catalinms.fileupload.service.storage.BlobStore;
+import com.catalinms.fileupload.service.storage.SeekPoints;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+import com.catalinms.fileupload.service.util.SingleFlight;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.Deflater;
+
+import javax.cache.Cache;
+
+/**
+ * Service for reading and writing file contents through the {@link BlobStore}.
+ * <p>
+ * Blob writes are tied to the current transaction, if any: a blob stored by a transaction that
+ * rolls back is removed, and a blob deleted by a transaction is only removed once it commits.
+ * <p>
+ * Small blobs read in memory are cached in the {@value #BLOBS_CACHE} cache, when there is one. As blobs are
+ * immutable and their keys never reused, the cached contents never go stale; they are still evicted along with
+ * their blob. Concurrent reads of the same blob missing the cache share a single read of the store.
+ * <p>
+ * Compressible contents are stored compressed, with the {@link BlobCodec} recorded in their key: contents of a
+ * type which is already compressed are stored as they are, and the others only if a sample of their first bytes
+ * compresses well. The size and hash of a blob are always those of its original content. A compressed blob is
+ * read from an offset by decoding it up to there, unless the offset is one of the {@link SeekPoints} given when
+ * storing it.
+ */
+@Service
+public class BlobService {
+
+    public static final String BLOBS_CACHE = "blobs";
+
+    /**
+     * Blobs up to this size are cached once read, larger ones are always read from the store.
+     */
+    public static final int MAX_CACHED_BLOB_SIZE = 1024 * 1024;
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * The number of leading bytes of a content sampled to decide whether to compress it.
+     */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * Contents smaller than this are not worth compressing.
+     */
+    private static final int MIN_COMPRESSED_SIZE = 512;
+
+    /**
+     * A content is compressed only if its sample compresses below this ratio.
+     */
+    private static final double MAX_COMPRESSION_RATIO = 0.9;
+
+    private static final List<String> COMPRESSED_CONTENT_TYPES = Arrays.asList(
+        "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp",
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+        "application/x-rar-compressed", "application/x-bzip2", "application/pdf");
+
+    private static final List<String> COMPRESSED_CONTENT_TYPE_PREFIXES = Arrays.asList("video/", "audio/");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Logger log = LoggerFactory.getLogger(BlobService.class);
+
+    private final BlobStore blobStore;
+
+    private final SingleFlight<String, byte[]> readFlights = new SingleFlight<>();
+
+    private Cache<String, byte[]> blobCache;
+
+    public BlobService(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    @Autowired(required = false)
+    public void setBlobCache(Cache<String, byte[]> blobCache) {
+        this.blobCache = blobCache;
+    }
+
+    /**
+     * Store a new blob, computing its size and hash while it is written, and compressing it if worthwhile.
+     *
+     * @param content the stream of the blob content
+     * @param contentType the content type of the blob, or null if unknown
+     * @return the stored blob
+     */
+    public StoredBlob store(InputStream content, String contentType) {
+        return store(content, contentType, null);
+    }
+
+    /**
+     * Store a new blob, computing its size and hash while it is written, and compressing it if worthwhile so that
+     * it can be decoded from each of its seek points.
+     *
+     * @param content the stream of the blob content
+     * @param contentType the content type of the blob, or null if unknown
+     * @param seekPoints the seek points of the content, whose offsets in the compressed blob are recorded, or null
+     * @return the stored blob
+     */
+    public StoredBlob store(InputStream content, String contentType, SeekPoints seekPoints) {
+        DigestInputStream digestStream = new DigestInputStream(content, newMessageDigest());
+        CountingInputStream countingStream = new CountingInputStream(digestStream);
+        String key;
+        try (InputStream sampledStream = new BufferedInputStream(countingStream, SAMPLE_SIZE)) {
+            BlobCodec codec = selectCodec(sampledStream, contentType);
+            try (InputStream encodedStream = codec.encode(sampledStream, seekPoints)) {
+                key = codec.toKey(blobStore.put(encodedStream));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob", e);
+        }
+        StoredBlob blob = new StoredBlob(key, countingStream.getByteCount(), toHex(digestStream.getMessageDigest().digest()));
+        log.debug("Stored blob : {}", blob);
+        deleteOnRollback(key);
+        return blob;
+    }
+
+    /**
+     * Store a new blob with the content of a local file, computing its size and hash. The file is left in place,
+     * and must not be modified afterwards; if the content is worth compressing, it is copied compressed instead.
+     *
+     * @param file the file to store
+     * @param contentType the content type of the file, or null if unknown
+     * @return the stored blob
+     */
+    public StoredBlob importFile(Path file, String contentType) {
+        return importFile(file, contentType, null);
+    }
+
+    /**
+     * Store a new blob with the content of a local file, computing its size and hash. The file is left in place,
+     * and must not be modified afterwards; if the content is worth compressing, it is copied compressed instead,
+     * so that it can be decoded from each of its seek points.
+     *
+     * @param file the file to store
+     * @param contentType the content type of the file, or null if unknown
+     * @param seekPoints the seek points of the content, whose offsets in the compressed blob are recorded, or null
+     * @return the stored blob
+     */
+    public StoredBlob importFile(Path file, String contentType, SeekPoints seekPoints) {
+        if (isCompressible(file, contentType)) {
+            try {
+                return store(Files.newInputStream(file), contentType, seekPoints);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to import blob from " + file, e);
+            }
+        }
+        StoredBlob blob;
+        try (DigestInputStream digestStream = new DigestInputStream(Files.newInputStream(file), newMessageDigest())) {
+            StreamUtils.drain(digestStream);
+            long size = Files.size(file);
+            String hash = toHex(digestStream.getMessageDigest().digest());
+            blob = new StoredBlob(blobStore.importFile(file), size, hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to import blob from " + file, e);
+        }
+        log.debug("Imported blob : {}", blob);
+        deleteOnRollback(blob.getKey());
+        return blob;
+    }
+
+    /**
+     * Open a blob for reading.
+     *
+     * @param key the key of the blob
+     * @return a stream of the blob content, to be closed by the caller
+     */
+    public InputStream open(String key) {
+        try {
+            return BlobCodec.fromKey(key).decode(blobStore.get(BlobCodec.toStoreKey(key)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + key, e);
+        }
+    }
+
+    /**
+     * Open a blob for reading from an offset. A blob kept as it is is read from the offset at once, without
+     * reading up to it if it is in a local file; the others are read, and decoded, up to it.
+     *
+     * @param key the key of the blob
+     * @param offset the offset of the first byte to read, in the blob content
+     * @return a stream of the blob content from the offset, to be closed by the caller
+     */
+    public InputStream open(String key, long offset) {
+        if (BlobCodec.fromKey(key) == BlobCodec.NONE) {
+            return openEncoded(key, offset);
+        }
+        try {
+            InputStream content = open(key);
+            try {
+                IOUtils.skipFully(content, offset);
+            } catch (IOException e) {
+                content.close();
+                throw e;
+            }
+            return content;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + key, e);
+        }
+    }
+
+    /**
+     * Open a blob for reading from one of the seek points it was stored with, decoding it from there.
+     *
+     * @param key the key of the blob
+     * @param encodedOffset the offset of the encoded bytes recorded for the seek point
+     * @return a stream of the blob content from the seek point, to be closed by the caller
+     */
+    public InputStream openAtSeekPoint(String key, long encodedOffset) {
+        try {
+            InputStream stored = openEncoded(key, encodedOffset);
+            try {
+                return BlobCodec.fromKey(key).decodeFrom(stored);
+            } catch (IOException e) {
+                stored.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + key, e);
+        }
+    }
+
+    /**
+     * Get the codec a blob is stored with.
+     *
+     * @param key the key of the blob
+     * @return the codec of the blob
+     */
+    public BlobCodec getCodec(String key) {
+        return BlobCodec.fromKey(key);
+    }
+
+    /**
+     * Open a blob for reading its bytes as they are stored, without decoding them.
+     *
+     * @param key the key of the blob
+     * @return a stream of the encoded blob content, to be closed by the caller
+     */
+    public InputStream openEncoded(String key) {
+        try {
+            return blobStore.get(BlobCodec.toStoreKey(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + key, e);
+        }
+    }
+
+    /**
+     * Open a blob for reading its bytes as they are stored from an offset, without reading up to it if the blob
+     * store keeps it in a local file.
+     *
+     * @param key the key of the blob
+     * @param encodedOffset the offset of the first byte to read, in the encoded blob
+     * @return a stream of the encoded blob content from the offset, to be closed by the caller
+     */
+    public InputStream openEncoded(String key, long encodedOffset) {
+        Optional<Path> localPath = getEncodedLocalPath(key);
+        try {
+            if (localPath.isPresent()) {
+                FileChannel channel = FileChannel.open(localPath.get(), StandardOpenOption.READ);
+                channel.position(encodedOffset);
+                return Channels.newInputStream(channel);
+            }
+            InputStream stored = openEncoded(key);
+            try {
+                IOUtils.skipFully(stored, encodedOffset);
+            } catch (IOException e) {
+                stored.close();
+                throw e;
+            }
+            return stored;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + key, e);
+        }
+    }
+
+    /**
+     * Get the path of the bytes of a blob as they are stored, if the blob store keeps it in a local file.
+     *
+     * @param key the key of the blob
+     * @return the path of the encoded blob, or empty
+     */
+    public Optional<Path> getEncodedLocalPath(String key) {
+        return blobStore.getLocalPath(BlobCodec.toStoreKey(key));
+    }
+
+    /**
+     * Get the path of a blob on the local filesystem, if the blob store keeps it as it is in a local file.
+     *
+     * @param key the key of the blob
+     * @return the path of the blob, or empty if it is not local or is encoded
+     */
+    public Optional<Path> getLocalPath(String key) {
+        if (BlobCodec.fromKey(key) != BlobCodec.NONE) {
+            return Optional.empty();
+        }
+        return blobStore.getLocalPath(key);
+    }
+
+    /**
+     * Read a whole blob in memory.
+     *
+     * @param key the key of the blob
+     * @return the blob content
+     */
+    public byte[] read(String key) {
+        byte[] cached = blobCache == null ? null : blobCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return readFlights.execute(key, () -> load(key));
+    }
+
+    /**
+     * Delete a blob, once the current transaction commits.
+     *
+     * @param key the key of the blob
+     */
+    public void delete(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    deleteNow(key);
+                }
+            });
+        } else {
+            deleteNow(key);
+        }
+    }
+
+    private byte[] load(String key) {
+        byte[] result;
+        try (InputStream content = open(key)) {
+            result = StreamUtils.copyToByteArray(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + key, e);
+        }
+        if (blobCache != null && result.length <= MAX_CACHED_BLOB_SIZE) {
+            blobCache.put(key, result);
+        }
+        return result;
+    }
+
+    private boolean isCompressible(Path file, String contentType) {
+        if (isCompressedContentType(contentType)) {
+            return false;
+        }
+        try (InputStream content = new BufferedInputStream(Files.newInputStream(file), SAMPLE_SIZE)) {
+            return selectCodec(content, contentType) != BlobCodec.NONE;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob from " + file, e);
+        }
+    }
+
+    /**
+     * Select the codec of a content from its type and from a sample of its first bytes, leaving the stream
+     * where it was.
+     */
+    private static BlobCodec selectCodec(InputStream content, String contentType) throws IOException {
+        if (isCompressedContentType(contentType)) {
+            return BlobCodec.NONE;
+        }
+        content.mark(SAMPLE_SIZE);
+        byte[] sample = new byte[SAMPLE_SIZE];
+        int sampleSize = 0;
+        int read;
+        while (sampleSize < SAMPLE_SIZE && (read = content.read(sample, sampleSize, SAMPLE_SIZE - sampleSize)) != -1) {
+            sampleSize += read;
+        }
+        content.reset();
+        if (sampleSize < MIN_COMPRESSED_SIZE) {
+            return BlobCodec.NONE;
+        }
+        return compressedSize(sample, sampleSize) < sampleSize * MAX_COMPRESSION_RATIO ? BlobCodec.GZIP : BlobCodec.NONE;
+    }
+
+    private static boolean isCompressedContentType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        int parameters = type.indexOf(';');
+        if (parameters != -1) {
+            type = type.substring(0, parameters);
+        }
+        type = type.trim();
+        return COMPRESSED_CONTENT_TYPES.contains(type)
+            || COMPRESSED_CONTENT_TYPE_PREFIXES.stream().anyMatch(type::startsWith);
+    }
+
+    private static long compressedSize(byte[] sample, int sampleSize) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(sample, 0, sampleSize);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                deflater.deflate(buffer);
+            }
+            return deflater.getBytesWritten();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void deleteOnRollback(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteNow(key);
+                    }
+                }
+            });
+        }
+    }
+
+    private void deleteNow(String key) {
+        try {
+            blobStore.delete(BlobCodec.toStoreKey(key));
+            if (blobCache != null) {
+                blobCache.remove(key);
+            }
+            log.debug("Deleted blob : {}", key);
+        } catch (IOException e) {
+            log.warn("Failed to delete blob {}, it is now orphaned", key, e);
+        }
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,246 @@
+package com.catalinms.fileupload.service;
+
+import com.catalinms.fileupload.domain.ContentBlob;
+import com.catalinms.fileupload.repository.ContentBlobRepository;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+import com.catalinms.fileupload.service.util.RowIndex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the file contents, deduplicated by their SHA-256 hash.
+ * <p>
+ * Each distinct content is kept once in the blob store, with the number of files referencing it. A content
+ * which is already stored is still written once, as its hash is only known at the end of the upload, but the
+ * new copy is dropped as soon as the transaction ends. The row of a new content is first inserted without any
+ * reference, in a transaction of its own, so concurrent first uploads of a content end up sharing a single copy
+ * of it; the reference is then counted under a lock of that row, in the current transaction. Clients knowing the
+ * hash upfront can skip the upload altogether, with {@link #reference(String, long)}.
+ * <p>
+ * Rows are only locked once they exist, as a locking read of a missing hash holds a gap lock under MySQL's
+ * REPEATABLE READ, which the insert of the hash on the other connection would wait for until it times out. The
+ * row of a content is therefore kept once its last reference is released, with its blob deleted, and a later
+ * upload of the content stores its copy in it again. Only the insert of a new content takes a second connection
+ * from the pool, for as long as a single statement.
+ * <p>
+ * The row index of a CSV content is kept in a blob of its own, stored with the first copy of the content and
+ * deleted with it.
+ */
+@Service
+@Transactional
+public class ContentBlobService {
+
+    private static final String ROW_INDEX_CONTENT_TYPE = "application/octet-stream";
+
+    private final Logger log = LoggerFactory.getLogger(ContentBlobService.class);
+
+    private final ContentBlobRepository contentBlobRepository;
+
+    private final BlobService blobService;
+
+    private final TransactionTemplate requiresNewTransactionTemplate;
+
+    public ContentBlobService(ContentBlobRepository contentBlobRepository, BlobService blobService,
+                              PlatformTransactionManager transactionManager) {
+        this.contentBlobRepository = contentBlobRepository;
+        this.blobService = blobService;
+        this.requiresNewTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Store a content, and add a reference to it.
+     *
+     * @param content the stream of the content
+     * @param contentType the content type of the content, or null if unknown
+     * @return the blob holding the content, which may have been stored by another file
+     */
+    public StoredBlob store(InputStream content, String contentType) {
+        return deduplicate(blobService.store(content, contentType));
+    }
+
+    /**
+     * Add a reference to a new blob. If its content is already stored, it is shared, and the new copy dropped once
+     * the transaction ends.
+     *
+     * @param blob the newly stored blob
+     * @return the blob holding the content, which may have been stored by another file
+     */
+    public StoredBlob deduplicate(StoredBlob blob) {
+        if (contentBlobRepository.findContentHashesIn(Collections.singleton(blob.getHash())).isEmpty()) {
+            insert(blob);
+        }
+        return addReference(contentBlobRepository.findByContentHashForUpdate(blob.getHash())
+            .orElseThrow(() -> new IllegalStateException("No content with hash " + blob.getHash())), blob);
+    }
+
+    /**
+     * Add a reference to each of the given new blobs at once, with a single lookup of their hashes and a single
+     * lock of their contents. The contents already stored, or repeated in the list, are shared, and their new copies
+     * dropped once the transaction ends.
+     *
+     * @param blobs the newly stored blobs
+     * @return the blobs holding the contents, in the same order, which may have been stored by other files
+     */
+    public List<StoredBlob> deduplicateAll(List<StoredBlob> blobs) {
+        if (blobs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> hashes = blobs.stream().map(StoredBlob::getHash).collect(Collectors.toSet());
+        Set<String> missing = new HashSet<>(hashes);
+        missing.removeAll(contentBlobRepository.findContentHashesIn(hashes));
+        for (StoredBlob blob : blobs) {
+            if (missing.remove(blob.getHash())) {
+                insert(blob);
+            }
+        }
+        Map<String, ContentBlob> contentBlobs = contentBlobRepository.findAllByContentHashInForUpdate(hashes).stream()
+            .collect(Collectors.toMap(ContentBlob::getContentHash, Function.identity()));
+        List<StoredBlob> result = new ArrayList<>(blobs.size());
+        for (StoredBlob blob : blobs) {
+            result.add(addReference(contentBlobs.get(blob.getHash()), blob));
+        }
+        return result;
+    }
+
+    /**
+     * Add a reference to a content which is already stored, without uploading it again.
+     *
+     * @param contentHash the SHA-256 hash of the content, in hex
+     * @param contentSize the size of the content, checked against the stored one
+     * @return the blob holding the content, or empty if there is no such content
+     */
+    public Optional<StoredBlob> reference(String contentHash, long contentSize) {
+        if (contentBlobRepository.findContentHashesIn(Collections.singleton(contentHash)).isEmpty()) {
+            return Optional.empty();
+        }
+        return contentBlobRepository.findByContentHashForUpdate(contentHash)
+            .filter(contentBlob -> contentBlob.getRefCount() > 0 && contentBlob.getContentSize() == contentSize)
+            .map(contentBlob -> {
+                contentBlob.setRefCount(contentBlob.getRefCount() + 1);
+                log.debug("Referenced blob : {}", contentBlob);
+                return toStoredBlob(contentBlob);
+            });
+    }
+
+    /**
+     * Store the row index of a content, unless the content is already indexed.
+     *
+     * @param blobKey the key of the blob holding the content
+     * @param rowIndex the row index of the content
+     */
+    public void indexRows(String blobKey, RowIndex rowIndex) {
+        contentBlobRepository.findByBlobKeyForUpdate(blobKey)
+            .filter(contentBlob -> contentBlob.getRowIndexKey() == null)
+            .ifPresent(contentBlob -> {
+                StoredBlob indexBlob = blobService.store(new ByteArrayInputStream(rowIndex.toByteArray()),
+                    ROW_INDEX_CONTENT_TYPE);
+                contentBlob.setRowIndexKey(indexBlob.getKey());
+                log.debug("Indexed rows of blob : {}", contentBlob);
+            });
+    }
+
+    /**
+     * Get the row index of a content.
+     *
+     * @param blobKey the key of the blob holding the content
+     * @return the row index, or empty if the content is not indexed
+     */
+    @Transactional(readOnly = true)
+    public Optional<RowIndex> findRowIndex(String blobKey) {
+        return contentBlobRepository.findOneByBlobKey(blobKey)
+            .map(ContentBlob::getRowIndexKey)
+            .map(rowIndexKey -> RowIndex.fromByteArray(blobService.read(rowIndexKey)));
+    }
+
+    /**
+     * Remove a reference to a blob, deleting the blob once the transaction commits if it was the last one.
+     *
+     * @param blobKey the key of the blob
+     */
+    public void release(String blobKey) {
+        Optional<ContentBlob> found = contentBlobRepository.findByBlobKeyForUpdate(blobKey)
+            .filter(contentBlob -> contentBlob.getRefCount() > 0);
+        if (!found.isPresent()) {
+            log.warn("Released blob {} is not referenced, leaving it in place", blobKey);
+            return;
+        }
+        ContentBlob contentBlob = found.get();
+        contentBlob.setRefCount(contentBlob.getRefCount() - 1);
+        if (contentBlob.getRefCount() > 0) {
+            log.debug("Released blob : {}", contentBlob);
+        } else {
+            deleteBlobs(contentBlob);
+            log.debug("Released last reference to blob : {}", contentBlob);
+        }
+    }
+
+    /**
+     * Count a reference to a locked content, dropping the new copy of it unless the content has no blob anymore.
+     */
+    private StoredBlob addReference(ContentBlob contentBlob, StoredBlob blob) {
+        if (!contentBlob.getBlobKey().equals(blob.getKey()) && contentBlob.getRefCount() == 0) {
+            // the blob of a released content is deleted, or is the copy of an upload which did not commit
+            deleteBlobs(contentBlob);
+            contentBlob.setBlobKey(blob.getKey());
+        }
+        contentBlob.setRefCount(contentBlob.getRefCount() + 1);
+        if (contentBlob.getBlobKey().equals(blob.getKey())) {
+            log.debug("Stored blob : {}", contentBlob);
+            return blob;
+        }
+        blobService.delete(blob.getKey());
+        log.debug("Deduplicated blob {} into : {}", blob.getKey(), contentBlob);
+        return toStoredBlob(contentBlob);
+    }
+
+    /**
+     * Insert a new content without any reference, in a transaction of its own, so a concurrent upload of the same
+     * content fails on the unique hash without failing the current transaction.
+     */
+    private void insert(StoredBlob blob) {
+        try {
+            requiresNewTransactionTemplate.execute(status -> contentBlobRepository.saveAndFlush(new ContentBlob()
+                .contentHash(blob.getHash())
+                .blobKey(blob.getKey())
+                .contentSize(blob.getSize())
+                .refCount(0L)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Blob {} was stored concurrently with the same hash {}", blob.getKey(), blob.getHash());
+        }
+    }
+
+    /**
+     * Delete the blobs of a content once the transaction commits, keeping its row for the later uploads of it.
+     */
+    private void deleteBlobs(ContentBlob contentBlob) {
+        blobService.delete(contentBlob.getBlobKey());
+        if (contentBlob.getRowIndexKey() != null) {
+            blobService.delete(contentBlob.getRowIndexKey());
+            contentBlob.setRowIndexKey(null);
+        }
+    }
+
+    private static StoredBlob toStoredBlob(ContentBlob contentBlob) {
+        return new StoredBlob(contentBlob.getBlobKey(), contentBlob.getContentSize(), contentBlob.getContentHash());
+    }
+}
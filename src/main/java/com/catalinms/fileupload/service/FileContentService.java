@@ -0,0 +1,403 @@
+package com.catalinms.fileupload.service;
+
+import com.catalinms.fileupload.config.ApplicationProperties;
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.repository.FileContentRepository;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.service.dto.FileUploadDTO;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+import com.catalinms.fileupload.service.util.CsvFormatException;
+import com.catalinms.fileupload.service.util.CsvRowIndexingInputStream;
+import com.catalinms.fileupload.service.util.CsvValidatingInputStream;
+import com.catalinms.fileupload.service.util.RowIndex;
+import com.catalinms.fileupload.web.rest.errors.InvalidCsvException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Service class for managing FileContent, whose bytes are kept in the blob store.
+ * <p>
+ * The CSV files are validated while they are stored, and rejected with an {@link InvalidCsvException} at their
+ * first error, before anything is persisted. Their rows are indexed at the same time, so that a range of rows
+ * can be read without reading the content before it: a compressed CSV content is decoded from the indexed row
+ * before the range, whose offset in the compressed blob is recorded in the index as the content is stored.
+ */
+@Service
+@Transactional
+public class FileContentService {
+
+    private static final List<MimeType> CSV_TYPES = Arrays.asList(
+        MimeTypeUtils.parseMimeType("text/csv"), MimeTypeUtils.parseMimeType("application/csv"));
+
+    private final Logger log = LoggerFactory.getLogger(FileContentService.class);
+
+    private final FileContentRepository fileContentRepository;
+
+    private final BlobService blobService;
+
+    private final ContentBlobService contentBlobService;
+
+    private final EntityManager entityManager;
+
+    private final int batchSize;
+
+    private final int rowIndexInterval;
+
+    public FileContentService(FileContentRepository fileContentRepository, BlobService blobService,
+                              ContentBlobService contentBlobService, EntityManager entityManager,
+                              ApplicationProperties applicationProperties) {
+        this.fileContentRepository = fileContentRepository;
+        this.blobService = blobService;
+        this.contentBlobService = contentBlobService;
+        this.entityManager = entityManager;
+        this.batchSize = applicationProperties.getBatch().getSize();
+        this.rowIndexInterval = applicationProperties.getRowIndex().getInterval();
+    }
+
+    /**
+     * Create a new fileContent, streaming its content to the blob store.
+     *
+     * @param name the name of the file
+     * @param contentType the content type of the file
+     * @param content the stream of the file content
+     * @return the persisted entity, without its content
+     */
+    public FileContent create(String name, String contentType, InputStream content) {
+        log.debug("Request to create FileContent : {}", name);
+        FileContent fileContent = new FileContent()
+            .name(name)
+            .contentContentType(contentType);
+        attachBlob(fileContent, storeContent(name, contentType, content));
+        return fileContentRepository.save(fileContent);
+    }
+
+    /**
+     * Create many fileContents in one transaction, streaming their contents to the blob store. They are
+     * persisted by batches, each sharing a single lookup of the stored contents and sent to the database in JDBC
+     * batches, and leave the persistence context once sent so that its size stays bounded.
+     *
+     * @param uploads the files to create
+     * @return the persisted entities, without their content, in the same order
+     */
+    public List<FileContent> createAll(List<FileUploadDTO> uploads) {
+        log.debug("Request to create {} FileContents", uploads.size());
+        List<FileContent> result = new ArrayList<>(uploads.size());
+        for (int start = 0; start < uploads.size(); start += batchSize) {
+            List<FileUploadDTO> batch = uploads.subList(start, Math.min(start + batchSize, uploads.size()));
+            List<StoredBlob> stored = new ArrayList<>(batch.size());
+            List<RowIndex> rowIndexes = new ArrayList<>(batch.size());
+            for (FileUploadDTO upload : batch) {
+                stored.add(storeBlob(upload, rowIndexes));
+            }
+            List<StoredBlob> blobs = contentBlobService.deduplicateAll(stored);
+            for (int i = 0; i < batch.size(); i++) {
+                if (rowIndexes.get(i) != null) {
+                    indexRows(stored.get(i), blobs.get(i), rowIndexes.get(i));
+                }
+            }
+            List<FileContent> fileContents = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                FileContent fileContent = new FileContent()
+                    .name(batch.get(i).getName())
+                    .contentContentType(batch.get(i).getContentContentType());
+                attachBlob(fileContent, blobs.get(i));
+                fileContents.add(fileContent);
+            }
+            result.addAll(fileContentRepository.saveAll(fileContents));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Create a new fileContent from a local file, imported in the blob store. A CSV file is validated and its rows
+     * indexed first, as importing the file may not read it.
+     *
+     * @param name the name of the file
+     * @param contentType the content type of the file
+     * @param file the file to import, left in place
+     * @return the persisted entity, without its content
+     */
+    public FileContent create(String name, String contentType, Path file) {
+        log.debug("Request to create FileContent : {} from file {}", name, file);
+        RowIndex rowIndex = null;
+        try (InputStream content = Files.newInputStream(file)) {
+            InputStream validated = validate(name, contentType, content);
+            if (validated != content) {
+                StreamUtils.drain(validated);
+            }
+            if (validated instanceof CsvRowIndexingInputStream) {
+                rowIndex = ((CsvRowIndexingInputStream) validated).getRowIndex();
+            }
+        } catch (CsvFormatException e) {
+            throw new InvalidCsvException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read file " + file, e);
+        }
+        StoredBlob stored = blobService.importFile(file, contentType, rowIndex);
+        StoredBlob blob = contentBlobService.deduplicate(stored);
+        if (rowIndex != null) {
+            indexRows(stored, blob, rowIndex);
+        }
+        FileContent fileContent = new FileContent()
+            .name(name)
+            .contentContentType(contentType);
+        attachBlob(fileContent, blob);
+        return fileContentRepository.save(fileContent);
+    }
+
+    /**
+     * Create a new fileContent from a content already in the blob store, without uploading it.
+     *
+     * @param upload the name and content type of the file, with the hash and size of its content
+     * @return the persisted entity, without its content, or empty if the content is not stored
+     */
+    public Optional<FileContent> createFromExisting(InstantUploadDTO upload) {
+        log.debug("Request to create FileContent from existing content : {}", upload);
+        return contentBlobService.reference(upload.getContentHash(), upload.getContentSize())
+            .map(blob -> {
+                FileContent fileContent = new FileContent()
+                    .name(upload.getName())
+                    .contentContentType(upload.getContentContentType());
+                attachBlob(fileContent, blob);
+                return fileContentRepository.save(fileContent);
+            });
+    }
+
+    /**
+     * Update a fileContent. Its content is replaced only if the given entity carries one.
+     *
+     * @param fileContent the entity to update
+     * @return the persisted entity
+     */
+    public FileContent update(FileContent fileContent) {
+        log.debug("Request to update FileContent : {}", fileContent);
+        Optional<FileContent> existing = fileContentRepository.findById(fileContent.getId());
+        String previousBlobKey = existing.map(FileContent::getBlobKey).orElse(null);
+        if (fileContent.getContent() != null) {
+            attachBlob(fileContent, storeContent(fileContent.getName(), fileContent.getContentContentType(),
+                new ByteArrayInputStream(fileContent.getContent())));
+            if (previousBlobKey != null && !previousBlobKey.equals(fileContent.getBlobKey())) {
+                contentBlobService.release(previousBlobKey);
+            }
+        } else {
+            existing.ifPresent(previous -> fileContent
+                .blobKey(previous.getBlobKey())
+                .contentSize(previous.getContentSize())
+                .contentHash(previous.getContentHash()));
+        }
+        return fileContentRepository.save(fileContent);
+    }
+
+    /**
+     * Get a page of fileContent summaries, without their content, ordered by id.
+     *
+     * @param after the id after which the page starts, or null for the first page
+     * @param pageable the pagination information, only its size is used
+     * @return the page of summaries
+     */
+    @Transactional(readOnly = true)
+    public Slice<FileSummaryDTO> findAll(Long after, Pageable pageable) {
+        log.debug("Request to get FileContents after : {}", after);
+        return fileContentRepository.findSummariesByIdAfter(after == null ? Long.MIN_VALUE : after,
+            PageRequest.of(0, pageable.getPageSize()));
+    }
+
+    /**
+     * Pass all the fileContent summaries, ordered by id, to an action as they are read from a database cursor.
+     *
+     * @param action the action performed on each summary
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<FileSummaryDTO> action) {
+        log.debug("Request to stream all FileContents");
+        try (Stream<FileSummaryDTO> summaries = fileContentRepository.streamAllSummaries()) {
+            summaries.forEach(action);
+        }
+    }
+
+    /**
+     * Get one fileContent by id, with its content.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     */
+    @Transactional(readOnly = true)
+    public Optional<FileContent> findOne(Long id) {
+        log.debug("Request to get FileContent : {}", id);
+        return fileContentRepository.findById(id)
+            .map(this::loadContent);
+    }
+
+    /**
+     * Get the summary of one fileContent by id, without its content.
+     *
+     * @param id the id of the entity
+     * @return the summary
+     */
+    @Transactional(readOnly = true)
+    public Optional<FileSummaryDTO> findSummary(Long id) {
+        log.debug("Request to get FileContent summary : {}", id);
+        return fileContentRepository.findSummaryById(id);
+    }
+
+    /**
+     * Get the summary of the first fileContent with the given content.
+     *
+     * @param contentHash the SHA-256 hash of the content, in hex
+     * @return the summary
+     */
+    @Transactional(readOnly = true)
+    public Optional<FileSummaryDTO> findSummaryByContentHash(String contentHash) {
+        log.debug("Request to get FileContent summary by content hash : {}", contentHash);
+        return fileContentRepository.findSummariesByContentHash(contentHash, PageRequest.of(0, 1)).stream()
+            .findFirst();
+    }
+
+    /**
+     * Get the row index of a content.
+     *
+     * @param blobKey the key of the blob holding the content
+     * @return the row index, or empty if the content is not an indexed CSV content
+     */
+    @Transactional(readOnly = true)
+    public Optional<RowIndex> findRowIndex(String blobKey) {
+        log.debug("Request to get the row index of blob : {}", blobKey);
+        return contentBlobService.findRowIndex(blobKey);
+    }
+
+    /**
+     * Delete a fileContent, and its blob if no other file shares it.
+     *
+     * @param id the id of the entity
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete FileContent : {}", id);
+        fileContentRepository.findById(id).ifPresent(fileContent -> {
+            fileContentRepository.delete(fileContent);
+            if (fileContent.getBlobKey() != null) {
+                contentBlobService.release(fileContent.getBlobKey());
+            }
+        });
+    }
+
+    private FileContent loadContent(FileContent fileContent) {
+        if (fileContent.getBlobKey() != null) {
+            fileContent.setContent(blobService.read(fileContent.getBlobKey()));
+        }
+        return fileContent;
+    }
+
+    private StoredBlob storeContent(String name, String contentType, InputStream content) {
+        InputStream validated = validate(name, contentType, content);
+        CsvRowIndexingInputStream indexed = validated instanceof CsvRowIndexingInputStream
+            ? (CsvRowIndexingInputStream) validated : null;
+        StoredBlob stored;
+        try {
+            stored = blobService.store(validated, contentType, indexed);
+        } catch (UncheckedIOException e) {
+            throw translate(e);
+        }
+        StoredBlob blob = contentBlobService.deduplicate(stored);
+        if (indexed != null) {
+            indexRows(stored, blob, indexed.getRowIndex());
+        }
+        return blob;
+    }
+
+    /**
+     * Store the content of an upload, adding its row index to the given list, or null if it is not indexed.
+     */
+    private StoredBlob storeBlob(FileUploadDTO upload, List<RowIndex> rowIndexes) {
+        try (InputStream content = upload.getContent().getInputStream()) {
+            InputStream validated = validate(upload.getName(), upload.getContentContentType(), content);
+            CsvRowIndexingInputStream indexed = validated instanceof CsvRowIndexingInputStream
+                ? (CsvRowIndexingInputStream) validated : null;
+            StoredBlob blob = blobService.store(validated, upload.getContentContentType(), indexed);
+            rowIndexes.add(indexed != null ? indexed.getRowIndex() : null);
+            return blob;
+        } catch (UncheckedIOException e) {
+            throw translate(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upload " + upload.getName(), e);
+        }
+    }
+
+    /**
+     * Store the row index of a content for the blob holding it. The offsets of the encoded bytes recorded in the
+     * index only hold for the blob stored along with it, not for an earlier copy it was deduplicated into.
+     */
+    private void indexRows(StoredBlob stored, StoredBlob blob, RowIndex rowIndex) {
+        contentBlobService.indexRows(blob.getKey(),
+            blob.getKey().equals(stored.getKey()) ? rowIndex : rowIndex.withoutEncodedOffsets());
+    }
+
+    private static void attachBlob(FileContent fileContent, StoredBlob blob) {
+        fileContent
+            .blobKey(blob.getKey())
+            .contentSize(blob.getSize())
+            .contentHash(blob.getHash());
+    }
+
+    /**
+     * Wrap the content of a CSV file, recognized by its content type or its extension, so that it is validated
+     * while it is read, in the charset of its content type or else in UTF-8, and its rows indexed if its charset
+     * allows it.
+     */
+    private InputStream validate(String name, String contentType, InputStream content) {
+        MimeType mimeType = null;
+        Charset charset = null;
+        if (contentType != null) {
+            try {
+                mimeType = MimeTypeUtils.parseMimeType(contentType);
+                charset = mimeType.getCharset();
+            } catch (IllegalArgumentException e) {
+                log.debug("Could not parse the content type {} of {}", contentType, name);
+            }
+        }
+        boolean csv = (mimeType != null && CSV_TYPES.stream().anyMatch(mimeType::equalsTypeAndSubtype))
+            || (name != null && name.toLowerCase(Locale.ROOT).endsWith(".csv"));
+        if (!csv) {
+            return content;
+        }
+        Charset csvCharset = charset != null ? charset : StandardCharsets.UTF_8;
+        InputStream validated = new CsvValidatingInputStream(content, csvCharset);
+        return CsvRowIndexingInputStream.supports(csvCharset)
+            ? new CsvRowIndexingInputStream(validated, rowIndexInterval) : validated;
+    }
+
+    private static RuntimeException translate(UncheckedIOException e) {
+        if (e.getCause() instanceof CsvFormatException) {
+            return new InvalidCsvException((CsvFormatException) e.getCause());
+        }
+        return e;
+    }
+}
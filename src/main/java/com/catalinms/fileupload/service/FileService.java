@@ -1,9 +1,15 @@
 package com.catalinms.fileupload.service;
 
 import com.catalinms.fileupload.service.dto.FileDTO;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
 
-import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.io.InputStream;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service Interface for managing File.
@@ -19,11 +25,49 @@ public interface FileService {
     FileDTO save(FileDTO fileDTO);
 
     /**
-     * Get all the files.
+     * Create a new file, streaming its content to the blob store.
+     *
+     * @param name the name of the file
+     * @param contentType the content type of the file
+     * @param content the stream of the file content
+     * @return the persisted entity, without its content
+     */
+    FileDTO create(String name, String contentType, InputStream content);
+
+    /**
+     * Replace the name, content type and content of the "id" file, streaming its content to the blob store.
+     *
+     * @param id the id of the entity
+     * @param name the new name of the file
+     * @param contentType the new content type of the file
+     * @param content the stream of the new file content
+     * @return the persisted entity, without its content, or empty if there is no such file
+     */
+    Optional<FileDTO> update(Long id, String name, String contentType, InputStream content);
+
+    /**
+     * Create a file from a content already in the blob store, without uploading it.
      *
-     * @return the list of entities
+     * @param upload the name and content type of the file, with the hash and size of its content
+     * @return the persisted entity, or empty if the content is not stored
      */
-    List<FileDTO> findAll();
+    Optional<FileDTO> createFromExisting(InstantUploadDTO upload);
+
+    /**
+     * Get a page of file summaries, without their content, ordered by id.
+     *
+     * @param after the id after which the page starts, or null for the first page
+     * @param pageable the pagination information, only its size is used
+     * @return the page of summaries
+     */
+    Slice<FileSummaryDTO> findAll(Long after, Pageable pageable);
+
+    /**
+     * Pass all the file summaries, ordered by id, to an action as they are read from a database cursor.
+     *
+     * @param action the action performed on each summary
+     */
+    void streamAll(Consumer<FileSummaryDTO> action);
 
 
     /**
@@ -34,6 +78,22 @@ public interface FileService {
      */
     Optional<FileDTO> findOne(Long id);
 
+    /**
+     * Get the summary of the "id" file, without its content.
+     *
+     * @param id the id of the entity
+     * @return the summary
+     */
+    Optional<FileSummaryDTO> findSummary(Long id);
+
+    /**
+     * Get the summary of the first file with the given content, without its content.
+     *
+     * @param contentHash the SHA-256 hash of the content, in hex
+     * @return the summary
+     */
+    Optional<FileSummaryDTO> findSummaryByContentHash(String contentHash);
+
     /**
      * Delete the "id" file.
      *
@@ -0,0 +1,242 @@
+package com.catalinms.fileupload.service;
+
+import com.catalinms.fileupload.config.ApplicationProperties;
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.domain.IngestJob;
+import com.catalinms.fileupload.domain.enumeration.IngestJobStatus;
+import com.catalinms.fileupload.repository.IngestJobRepository;
+import com.catalinms.fileupload.web.rest.errors.IngestQueueFullException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.zalando.problem.ThrowableProblem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Service class for the asynchronous uploads, tracked by an IngestJob.
+ * <p>
+ * The request thread only moves the upload to a staging file and queues a job: hashing, validating, compressing
+ * and storing the content, then persisting the FileContent, run on the bounded ingest executor, as many jobs at
+ * once as its configured parallelism. The first stages are filters over a single read of the staging file, so they
+ * run together in each job rather than on executors of their own, which would hand every buffer over between
+ * threads. Each step commits on its own, so the status of a job can be polled while it runs.
+ * <p>
+ * The error message of a failed job is shown to the client: it is the title of the problem, such as an invalid
+ * CSV file, or a generic message, the exception itself being logged.
+ */
+@Service
+@Transactional
+public class IngestJobService {
+
+    private static final String STAGING_FILE_PREFIX = "ingest-";
+
+    private static final String STORE_FAILED_MESSAGE = "The file could not be stored";
+
+    private final Logger log = LoggerFactory.getLogger(IngestJobService.class);
+
+    private final IngestJobRepository ingestJobRepository;
+
+    private final FileContentService fileContentService;
+
+    private final TaskExecutor ingestExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path stagingDirectory;
+
+    private final int retentionDays;
+
+    public IngestJobService(IngestJobRepository ingestJobRepository, FileContentService fileContentService,
+                            @Qualifier("ingestExecutor") TaskExecutor ingestExecutor,
+                            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties) {
+        this.ingestJobRepository = ingestJobRepository;
+        this.fileContentService = fileContentService;
+        this.ingestExecutor = ingestExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stagingDirectory = Paths.get(applicationProperties.getStorage().getStagingLocation()).toAbsolutePath();
+        this.retentionDays = applicationProperties.getIngest().getRetentionDays();
+    }
+
+    /**
+     * Receive a file to a staging file, and queue a job storing it as a FileContent.
+     *
+     * @param name the name of the file
+     * @param file the multipart file, moved to the staging file when it is already spooled to disk
+     * @return the queued job
+     * @throws IngestQueueFullException if too many jobs are already queued
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public IngestJob submit(String name, MultipartFile file) {
+        log.debug("Request to submit IngestJob : {}", name);
+        IngestJob job = transactionTemplate.execute(status -> ingestJobRepository.save(new IngestJob()
+            .name(name)
+            .contentContentType(file.getContentType())
+            .status(IngestJobStatus.QUEUED)));
+        Long id = job.getId();
+        try {
+            Files.createDirectories(stagingDirectory);
+            file.transferTo(getStagingFile(id).toFile());
+        } catch (IOException e) {
+            deleteStagingFile(id);
+            transactionTemplate.execute(status -> {
+                ingestJobRepository.deleteById(id);
+                return null;
+            });
+            throw new UncheckedIOException("Failed to receive upload " + name, e);
+        }
+        if (!queue(id)) {
+            throw new IngestQueueFullException();
+        }
+        return job;
+    }
+
+    /**
+     * Jobs left queued or processing when the application stopped are queued again if their staging file is still
+     * there, and failed otherwise.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void resumeInterruptedJobs() {
+        ingestJobRepository
+            .findAllByStatusIn(Arrays.asList(IngestJobStatus.QUEUED, IngestJobStatus.PROCESSING))
+            .forEach(job -> {
+                if (Files.exists(getStagingFile(job.getId()))) {
+                    log.info("Resuming interrupted ingest job {}", job.getId());
+                    queue(job.getId());
+                } else {
+                    log.warn("Ingest job {} was interrupted and its staging file is gone", job.getId());
+                    fail(job.getId(), "The job was interrupted by a restart");
+                }
+            });
+    }
+
+    /**
+     * Get one ingestJob by id.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     */
+    @Transactional(readOnly = true)
+    public Optional<IngestJob> findOne(Long id) {
+        log.debug("Request to get IngestJob : {}", id);
+        return ingestJobRepository.findById(id);
+    }
+
+    /**
+     * Jobs are deleted once they are older than the retention period. Jobs still queued or processing past it were
+     * interrupted by a restart, and are deleted with their staging file.
+     * <p>
+     * This is scheduled to get fired everyday, at 03:00 (am).
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void removeExpiredJobs() {
+        ingestJobRepository
+            .findAllByCreatedDateBefore(Instant.now().minus(retentionDays, ChronoUnit.DAYS))
+            .forEach(job -> {
+                log.debug("Deleting expired ingest job {}", job.getId());
+                ingestJobRepository.delete(job);
+                deleteStagingFile(job.getId());
+            });
+    }
+
+    /**
+     * Queue a job whose staging file is received, or fail it and delete its staging file if the queue is full.
+     *
+     * @return true if the job was queued
+     */
+    private boolean queue(Long id) {
+        try {
+            ingestExecutor.execute(() -> process(id));
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("Refused IngestJob {}, the ingest queue is full", id);
+            deleteStagingFile(id);
+            fail(id, "The ingest queue is full");
+            return false;
+        }
+    }
+
+    private void process(Long id) {
+        try {
+            IngestJob job = transactionTemplate.execute(status -> ingestJobRepository.findById(id)
+                .map(found -> found.status(IngestJobStatus.PROCESSING))
+                .orElse(null));
+            if (job == null) {
+                log.warn("Ingest job {} was deleted before being processed", id);
+                return;
+            }
+            // the content is hashed, compressed and stored while it is read, then persisted with the job status
+            transactionTemplate.execute(status -> {
+                FileContent fileContent;
+                try (InputStream content = Files.newInputStream(getStagingFile(id))) {
+                    fileContent = fileContentService.create(job.getName(), job.getContentContentType(), content);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read the staging file of ingest job " + id, e);
+                }
+                ingestJobRepository.findById(id).ifPresent(found -> found
+                    .status(IngestJobStatus.COMPLETED)
+                    .fileContentId(fileContent.getId())
+                    .completedDate(Instant.now()));
+                return null;
+            });
+            log.debug("Completed IngestJob : {}", id);
+        } catch (RuntimeException e) {
+            log.warn("Ingest job {} failed", id, e);
+            fail(id, getErrorMessage(e));
+        } finally {
+            deleteStagingFile(id);
+        }
+    }
+
+    private static String getErrorMessage(RuntimeException e) {
+        if (e instanceof ThrowableProblem && ((ThrowableProblem) e).getTitle() != null) {
+            return ((ThrowableProblem) e).getTitle();
+        }
+        return STORE_FAILED_MESSAGE;
+    }
+
+    private void fail(Long id, String errorMessage) {
+        transactionTemplate.execute(status -> {
+            ingestJobRepository.findById(id).ifPresent(job -> job
+                .status(IngestJobStatus.FAILED)
+                .errorMessage(errorMessage.length() > IngestJob.ERROR_MESSAGE_MAX_LENGTH
+                    ? errorMessage.substring(0, IngestJob.ERROR_MESSAGE_MAX_LENGTH) : errorMessage)
+                .completedDate(Instant.now()));
+            return null;
+        });
+    }
+
+    private Path getStagingFile(Long id) {
+        return stagingDirectory.resolve(STAGING_FILE_PREFIX + id);
+    }
+
+    private void deleteStagingFile(Long id) {
+        try {
+            Files.deleteIfExists(getStagingFile(id));
+        } catch (IOException e) {
+            log.warn("Failed to delete the staging file of ingest job {}", id, e);
+        }
+    }
+}
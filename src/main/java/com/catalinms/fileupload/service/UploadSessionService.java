@@ -0,0 +1,341 @@
+package com.catalinms.fileupload.service;
+
+import com.catalinms.fileupload.config.ApplicationProperties;
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.domain.UploadSession;
+import com.catalinms.fileupload.domain.UploadSessionChunk;
+import com.catalinms.fileupload.repository.UploadSessionChunkRepository;
+import com.catalinms.fileupload.repository.UploadSessionRepository;
+import com.catalinms.fileupload.web.rest.errors.BadRequestAlertException;
+import com.catalinms.fileupload.web.rest.errors.UploadOffsetMismatchException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service class for managing UploadSession.
+ * <p>
+ * The bytes of a session are written to its own staging file, and the committed size of the session
+ * only grows once they are flushed to disk. A chunk interrupted midway is therefore simply sent again,
+ * from the committed size: the client never has to restart the whole upload.
+ * <p>
+ * A session with a chunk size is uploaded in parallel instead: its staging file is allocated to the size
+ * of the file upfront, and each chunk is written at its own position, in any order and without locking
+ * the session. Each received chunk is recorded, so the client can tell which ones are missing.
+ */
+@Service
+@Transactional
+public class UploadSessionService {
+
+    private static final String ENTITY_NAME = "uploadSession";
+
+    private final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private final UploadSessionRepository uploadSessionRepository;
+
+    private final UploadSessionChunkRepository uploadSessionChunkRepository;
+
+    private final FileContentService fileContentService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Path stagingDirectory;
+
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository,
+                                UploadSessionChunkRepository uploadSessionChunkRepository,
+                                FileContentService fileContentService,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationProperties applicationProperties) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadSessionChunkRepository = uploadSessionChunkRepository;
+        this.fileContentService = fileContentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stagingDirectory = Paths.get(applicationProperties.getStorage().getStagingLocation()).toAbsolutePath();
+    }
+
+    /**
+     * Create a new uploadSession, with an empty staging file, or one allocated to the size of the file if
+     * the session is uploaded in parallel.
+     *
+     * @param uploadSession the name, content type and size of the file to upload, and its chunk size if any
+     * @return the persisted entity
+     */
+    public UploadSession create(UploadSession uploadSession) {
+        log.debug("Request to create UploadSession : {}", uploadSession);
+        uploadSession.committedSize(0L).setCreatedDate(Instant.now());
+        UploadSession result = uploadSessionRepository.save(uploadSession);
+        Path stagingFile = getStagingFile(result.getId());
+        try {
+            Files.createDirectories(stagingDirectory);
+            // truncates the leftover of a session whose id was reused
+            Files.write(stagingFile, new byte[0]);
+            if (result.getChunkSize() != null) {
+                try (RandomAccessFile file = new RandomAccessFile(stagingFile.toFile(), "rw")) {
+                    file.setLength(result.getContentSize());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create staging file " + stagingFile, e);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteStagingFile(result.getId());
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Get one uploadSession by id.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     */
+    @Transactional(readOnly = true)
+    public Optional<UploadSession> findOne(Long id) {
+        log.debug("Request to get UploadSession : {}", id);
+        return uploadSessionRepository.findById(id);
+    }
+
+    /**
+     * Append a chunk to an uploadSession. The chunk must start at the committed size of the session,
+     * and is committed once it is entirely written.
+     * <p>
+     * No transaction is held while the chunk is written: the staging file is locked instead, so the chunks of a
+     * session are still written one at a time, and the committed size is only moved from the offset of the chunk,
+     * in a short transaction of its own.
+     *
+     * @param id the id of the entity
+     * @param offset the offset of the chunk in the file
+     * @param chunk the stream of the chunk bytes
+     * @return the updated entity
+     * @throws UploadOffsetMismatchException if the chunk does not start at the committed size, or if another chunk
+     * of the session is being written
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<UploadSession> append(Long id, long offset, InputStream chunk) {
+        log.debug("Request to append to UploadSession {} at offset {}", id, offset);
+        Path stagingFile = getStagingFile(id);
+        if (!Files.exists(stagingFile)) {
+            // the staging file is created and deleted with its session
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(stagingFile, StandardOpenOption.WRITE);
+             FileLock lock = tryLock(channel)) {
+            Optional<UploadSession> found = uploadSessionRepository.findById(id);
+            if (!found.isPresent()) {
+                return found;
+            }
+            UploadSession uploadSession = found.get();
+            if (uploadSession.getChunkSize() != null) {
+                throw new BadRequestAlertException("The upload session takes indexed chunks", ENTITY_NAME, "sessionchunked");
+            }
+            if (lock == null || offset != uploadSession.getCommittedSize()) {
+                throw new UploadOffsetMismatchException(uploadSession.getCommittedSize());
+            }
+            long remaining = uploadSession.getContentSize() - offset;
+            // drops the bytes of a previous chunk which was interrupted before being committed
+            channel.truncate(offset);
+            long written = channel.transferFrom(Channels.newChannel(chunk), offset, remaining + 1);
+            if (written > remaining) {
+                channel.truncate(offset);
+                throw new BadRequestAlertException("The chunk goes past the end of the file", ENTITY_NAME, "chunktoolarge");
+            }
+            channel.force(false);
+            long committedSize = offset + written;
+            Integer updated = transactionTemplate.execute(status ->
+                uploadSessionRepository.compareAndSetCommittedSize(id, offset, committedSize));
+            if (updated == null || updated == 0) {
+                throw new UploadOffsetMismatchException(uploadSessionRepository.findById(id)
+                    .map(UploadSession::getCommittedSize)
+                    .orElse(offset));
+            }
+            return Optional.of(uploadSession.committedSize(committedSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write chunk of upload session " + id, e);
+        }
+    }
+
+    /**
+     * Write a chunk of a parallel uploadSession at its position in the staging file. The session is not locked
+     * while the chunk is written, so other chunks can be written at the same time, and no transaction is held
+     * meanwhile: the chunk is only recorded afterwards, in a short transaction. A chunk which was already
+     * received is not written or counted again, even if it is sent twice at the same time.
+     *
+     * @param id the id of the entity
+     * @param index the index of the chunk in the file
+     * @param chunk the stream of the chunk bytes, which must be exactly the size of the chunk
+     * @return the updated entity
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<UploadSession> writeChunk(Long id, int index, InputStream chunk) {
+        log.debug("Request to write chunk {} of UploadSession {}", index, id);
+        Optional<UploadSession> found = uploadSessionRepository.findById(id);
+        if (!found.isPresent()) {
+            return found;
+        }
+        UploadSession uploadSession = found.get();
+        if (uploadSession.getChunkSize() == null) {
+            throw new BadRequestAlertException("The upload session takes sequential chunks", ENTITY_NAME, "sessionnotchunked");
+        }
+        long position = (long) index * uploadSession.getChunkSize();
+        if (index < 0 || position >= uploadSession.getContentSize()) {
+            throw new BadRequestAlertException("The chunk index is out of the file", ENTITY_NAME, "chunkindexinvalid");
+        }
+        if (uploadSessionChunkRepository.existsByUploadSessionIdAndChunkIndex(id, index)) {
+            log.debug("Chunk {} of UploadSession {} was already received", index, id);
+            return found;
+        }
+        long length = Math.min(uploadSession.getChunkSize(), uploadSession.getContentSize() - position);
+        try (FileChannel channel = FileChannel.open(getStagingFile(id), StandardOpenOption.WRITE)) {
+            long written = channel.transferFrom(Channels.newChannel(chunk), position, length);
+            if (written != length || chunk.read() != -1) {
+                throw new BadRequestAlertException("The chunk must be " + length + " bytes long", ENTITY_NAME, "chunksizeinvalid");
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write chunk of upload session " + id, e);
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                uploadSessionChunkRepository.saveAndFlush(new UploadSessionChunk()
+                    .uploadSession(uploadSession)
+                    .chunkIndex(index));
+                uploadSessionRepository.addCommittedSize(id, length);
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // the same chunk was sent twice at the same time, and the other one was recorded first
+            log.debug("Chunk {} of UploadSession {} was received concurrently", index, id);
+        }
+        return uploadSessionRepository.findById(id);
+    }
+
+    /**
+     * Get the indexes of the chunks received by a parallel uploadSession.
+     *
+     * @param id the id of the entity
+     * @return the ordered indexes of the received chunks
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<Integer>> findChunkIndexes(Long id) {
+        log.debug("Request to get the chunks of UploadSession : {}", id);
+        return uploadSessionRepository.findById(id)
+            .map(uploadSession -> uploadSessionChunkRepository.findChunkIndexesByUploadSessionId(id));
+    }
+
+    /**
+     * Finalise a complete uploadSession into a new fileContent. The staging file is validated if it is a CSV file,
+     * then becomes the blob of the fileContent, and is removed with the session once the transaction commits.
+     *
+     * @param id the id of the entity
+     * @return the created fileContent
+     */
+    public Optional<FileContent> complete(Long id) {
+        log.debug("Request to complete UploadSession : {}", id);
+        return uploadSessionRepository.findByIdForUpdate(id).map(uploadSession -> {
+            if (!uploadSession.isComplete()) {
+                throw new BadRequestAlertException("The upload is not complete", ENTITY_NAME, "uploadincomplete");
+            }
+            FileContent fileContent = fileContentService.create(uploadSession.getName(),
+                uploadSession.getContentContentType(), getStagingFile(id));
+            delete(uploadSession);
+            return fileContent;
+        });
+    }
+
+    /**
+     * Delete an uploadSession and its staging file.
+     *
+     * @param id the id of the entity
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete UploadSession : {}", id);
+        uploadSessionRepository.findByIdForUpdate(id).ifPresent(this::delete);
+    }
+
+    /**
+     * Upload sessions which are not completed should be automatically deleted after 7 days.
+     * <p>
+     * This is scheduled to get fired everyday, at 02:00 (am).
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void removeExpiredSessions() {
+        uploadSessionRepository
+            .findAllByCreatedDateBefore(Instant.now().minus(7, ChronoUnit.DAYS))
+            .forEach(uploadSession -> {
+                log.debug("Deleting expired upload session {}", uploadSession.getId());
+                delete(uploadSession);
+            });
+    }
+
+    private void delete(UploadSession uploadSession) {
+        uploadSessionChunkRepository.deleteByUploadSessionId(uploadSession.getId());
+        uploadSessionRepository.delete(uploadSession);
+        Long id = uploadSession.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    deleteStagingFile(id);
+                }
+            });
+        } else {
+            deleteStagingFile(id);
+        }
+    }
+
+    /**
+     * Lock a staging file, or return null if it is already locked, by this process or by another one.
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private Path getStagingFile(Long id) {
+        return stagingDirectory.resolve(id.toString());
+    }
+
+    private void deleteStagingFile(Long id) {
+        try {
+            Files.deleteIfExists(getStagingFile(id));
+        } catch (IOException e) {
+            log.warn("Failed to delete the staging file of upload session {}", id, e);
+        }
+    }
+}
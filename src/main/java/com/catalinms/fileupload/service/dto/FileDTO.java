@@ -20,6 +20,10 @@ public class FileDTO implements Serializable {
 
     private String contentContentType;
 
+    private Long contentSize;
+
+    private String contentHash;
+
     public Long getId() {
         return id;
     }
@@ -52,6 +56,22 @@ public class FileDTO implements Serializable {
         this.contentContentType = contentContentType;
     }
 
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -78,7 +98,9 @@ public class FileDTO implements Serializable {
         return "FileDTO{" +
             "id=" + getId() +
             ", name='" + getName() + "'" +
-            ", content='" + getContent() + "'" +
+            ", contentContentType='" + getContentContentType() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", contentHash='" + getContentHash() + "'" +
             "}";
     }
 }
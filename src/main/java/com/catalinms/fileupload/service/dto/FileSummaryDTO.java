@@ -0,0 +1,118 @@
+package com.catalinms.fileupload.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO describing a stored file without its content, used by the File and FileContent listings.
+ */
+public class FileSummaryDTO implements Serializable {
+
+    private Long id;
+
+    private String name;
+
+    private String contentContentType;
+
+    private Long contentSize;
+
+    private String contentHash;
+
+    @JsonIgnore
+    private String blobKey;
+
+    public FileSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public FileSummaryDTO(Long id, String name, String contentContentType, Long contentSize, String contentHash, String blobKey) {
+        this.id = id;
+        this.name = name;
+        this.contentContentType = contentContentType;
+        this.contentSize = contentSize;
+        this.contentHash = contentHash;
+        this.blobKey = blobKey;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getContentContentType() {
+        return contentContentType;
+    }
+
+    public void setContentContentType(String contentContentType) {
+        this.contentContentType = contentContentType;
+    }
+
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getBlobKey() {
+        return blobKey;
+    }
+
+    public void setBlobKey(String blobKey) {
+        this.blobKey = blobKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        FileSummaryDTO fileSummaryDTO = (FileSummaryDTO) o;
+        if (fileSummaryDTO.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), fileSummaryDTO.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "FileSummaryDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", contentContentType='" + getContentContentType() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", contentHash='" + getContentHash() + "'" +
+            "}";
+    }
+}
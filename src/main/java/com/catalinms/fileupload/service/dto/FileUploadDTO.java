@@ -0,0 +1,41 @@
+package com.catalinms.fileupload.service.dto;
+
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * A DTO for a file uploaded with others, whose content is read once its turn comes.
+ */
+public class FileUploadDTO {
+
+    private final String name;
+
+    private final String contentContentType;
+
+    private final InputStreamSource content;
+
+    public FileUploadDTO(String name, String contentContentType, InputStreamSource content) {
+        this.name = name;
+        this.contentContentType = contentContentType;
+        this.content = content;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getContentContentType() {
+        return contentContentType;
+    }
+
+    public InputStreamSource getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "FileUploadDTO{" +
+            "name='" + getName() + "'" +
+            ", contentContentType='" + getContentContentType() + "'" +
+            "}";
+    }
+}
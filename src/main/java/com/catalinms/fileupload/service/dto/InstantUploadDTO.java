@@ -0,0 +1,69 @@
+package com.catalinms.fileupload.service.dto;
+
+import javax.validation.constraints.*;
+import java.io.Serializable;
+
+/**
+ * A DTO describing a file to create from a content the server may already hold, before uploading it.
+ */
+public class InstantUploadDTO implements Serializable {
+
+    @NotNull
+    private String name;
+
+    @NotNull
+    private String contentContentType;
+
+    @NotNull
+    @Min(value = 0L)
+    private Long contentSize;
+
+    /**
+     * The SHA-256 hash of the content, in lowercase hex.
+     */
+    @NotNull
+    @Pattern(regexp = "^[0-9a-f]{64}$")
+    private String contentHash;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getContentContentType() {
+        return contentContentType;
+    }
+
+    public void setContentContentType(String contentContentType) {
+        this.contentContentType = contentContentType;
+    }
+
+    public Long getContentSize() {
+        return contentSize;
+    }
+
+    public void setContentSize(Long contentSize) {
+        this.contentSize = contentSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    @Override
+    public String toString() {
+        return "InstantUploadDTO{" +
+            "name='" + getName() + "'" +
+            ", contentContentType='" + getContentContentType() + "'" +
+            ", contentSize=" + getContentSize() +
+            ", contentHash='" + getContentHash() + "'" +
+            "}";
+    }
+}
@@ -1,20 +1,29 @@
 package com.catalinms.fileupload.service.impl;
 
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.ContentBlobService;
 import com.catalinms.fileupload.service.FileService;
 import com.catalinms.fileupload.domain.File;
 import com.catalinms.fileupload.repository.FileRepository;
 import com.catalinms.fileupload.service.dto.FileDTO;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
 import com.catalinms.fileupload.service.mapper.FileMapper;
+import com.catalinms.fileupload.service.storage.StoredBlob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service Implementation for managing File.
@@ -29,13 +38,21 @@ public class FileServiceImpl implements FileService {
 
     private final FileMapper fileMapper;
 
-    public FileServiceImpl(FileRepository fileRepository, FileMapper fileMapper) {
+    private final BlobService blobService;
+
+    private final ContentBlobService contentBlobService;
+
+    public FileServiceImpl(FileRepository fileRepository, FileMapper fileMapper, BlobService blobService,
+                           ContentBlobService contentBlobService) {
         this.fileRepository = fileRepository;
         this.fileMapper = fileMapper;
+        this.blobService = blobService;
+        this.contentBlobService = contentBlobService;
     }
 
     /**
-     * Save a file.
+     * Save a file. Its content is replaced only if the given DTO carries one, and the previous content is released
+     * once the new one is referenced.
      *
      * @param fileDTO the entity to save
      * @return the persisted entity
@@ -45,22 +62,112 @@ public class FileServiceImpl implements FileService {
         log.debug("Request to save File : {}", fileDTO);
 
         File file = fileMapper.toEntity(fileDTO);
-        file = fileRepository.save(file);
-        return fileMapper.toDto(file);
+        Optional<File> existing = fileDTO.getId() == null ? Optional.empty() : fileRepository.findById(fileDTO.getId());
+        if (fileDTO.getContent() != null) {
+            attachBlob(file, contentBlobService.store(new ByteArrayInputStream(fileDTO.getContent()),
+                fileDTO.getContentContentType()));
+            existing.map(File::getBlobKey)
+                .filter(previousBlobKey -> !previousBlobKey.equals(file.getBlobKey()))
+                .ifPresent(contentBlobService::release);
+        } else {
+            existing.ifPresent(previous -> file
+                .blobKey(previous.getBlobKey())
+                .contentSize(previous.getContentSize())
+                .contentHash(previous.getContentHash()));
+        }
+        FileDTO result = fileMapper.toDto(fileRepository.save(file));
+        result.setContent(fileDTO.getContent());
+        return result;
+    }
+
+    /**
+     * Create a new file, streaming its content to the blob store.
+     *
+     * @param name the name of the file
+     * @param contentType the content type of the file
+     * @param content the stream of the file content
+     * @return the persisted entity, without its content
+     */
+    @Override
+    public FileDTO create(String name, String contentType, InputStream content) {
+        log.debug("Request to create File : {}", name);
+        File file = new File()
+            .name(name)
+            .contentContentType(contentType);
+        attachBlob(file, contentBlobService.store(content, contentType));
+        return fileMapper.toDto(fileRepository.save(file));
+    }
+
+    /**
+     * Replace the name, content type and content of the "id" file, streaming its content to the blob store.
+     *
+     * @param id the id of the entity
+     * @param name the new name of the file
+     * @param contentType the new content type of the file
+     * @param content the stream of the new file content
+     * @return the persisted entity, without its content, or empty if there is no such file
+     */
+    @Override
+    public Optional<FileDTO> update(Long id, String name, String contentType, InputStream content) {
+        log.debug("Request to update File {} : {}", id, name);
+        return fileRepository.findById(id).map(file -> {
+            String previousBlobKey = file.getBlobKey();
+            file.name(name)
+                .contentContentType(contentType);
+            attachBlob(file, contentBlobService.store(content, contentType));
+            if (previousBlobKey != null && !previousBlobKey.equals(file.getBlobKey())) {
+                contentBlobService.release(previousBlobKey);
+            }
+            return fileMapper.toDto(file);
+        });
+    }
+
+    /**
+     * Create a file from a content already in the blob store.
+     *
+     * @param upload the name and content type of the file, with the hash and size of its content
+     * @return the persisted entity, or empty if the content is not stored
+     */
+    @Override
+    public Optional<FileDTO> createFromExisting(InstantUploadDTO upload) {
+        log.debug("Request to create File from existing content : {}", upload);
+        return contentBlobService.reference(upload.getContentHash(), upload.getContentSize())
+            .map(blob -> {
+                File file = new File()
+                    .name(upload.getName())
+                    .contentContentType(upload.getContentContentType());
+                attachBlob(file, blob);
+                return fileMapper.toDto(fileRepository.save(file));
+            });
     }
 
     /**
-     * Get all the files.
+     * Get a page of file summaries, without their content, ordered by id.
      *
-     * @return the list of entities
+     * @param after the id after which the page starts, or null for the first page
+     * @param pageable the pagination information, only its size is used
+     * @return the page of summaries
      */
     @Override
     @Transactional(readOnly = true)
-    public List<FileDTO> findAll() {
-        log.debug("Request to get all Files");
-        return fileRepository.findAll().stream()
-            .map(fileMapper::toDto)
-            .collect(Collectors.toCollection(LinkedList::new));
+    public Slice<FileSummaryDTO> findAll(Long after, Pageable pageable) {
+        log.debug("Request to get Files after : {}", after);
+        return fileRepository.findSummariesByIdAfter(after == null ? Long.MIN_VALUE : after,
+            PageRequest.of(0, pageable.getPageSize()));
+    }
+
+    /**
+     * Pass all the file summaries, ordered by id, to an action as they are read from a database cursor.
+     *
+     * @param action the action performed on each summary
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<FileSummaryDTO> action) {
+        log.debug("Request to stream all Files");
+        try (Stream<FileSummaryDTO> summaries = fileRepository.streamAllSummaries()) {
+            summaries.forEach(action);
+        }
     }
 
 
@@ -75,7 +182,34 @@ public class FileServiceImpl implements FileService {
     public Optional<FileDTO> findOne(Long id) {
         log.debug("Request to get File : {}", id);
         return fileRepository.findById(id)
-            .map(fileMapper::toDto);
+            .map(this::toDtoWithContent);
+    }
+
+    /**
+     * Get the summary of one file by id, without its content.
+     *
+     * @param id the id of the entity
+     * @return the summary
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<FileSummaryDTO> findSummary(Long id) {
+        log.debug("Request to get File summary : {}", id);
+        return fileRepository.findSummaryById(id);
+    }
+
+    /**
+     * Get the summary of the first file with the given content.
+     *
+     * @param contentHash the SHA-256 hash of the content, in hex
+     * @return the summary
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<FileSummaryDTO> findSummaryByContentHash(String contentHash) {
+        log.debug("Request to get File summary by content hash : {}", contentHash);
+        return fileRepository.findSummariesByContentHash(contentHash, PageRequest.of(0, 1)).stream()
+            .findFirst();
     }
 
     /**
@@ -86,6 +220,25 @@ public class FileServiceImpl implements FileService {
     @Override
     public void delete(Long id) {
         log.debug("Request to delete File : {}", id);
-        fileRepository.deleteById(id);
+        fileRepository.findById(id).ifPresent(file -> {
+            fileRepository.delete(file);
+            if (file.getBlobKey() != null) {
+                contentBlobService.release(file.getBlobKey());
+            }
+        });
+    }
+
+    private static void attachBlob(File file, StoredBlob blob) {
+        file.blobKey(blob.getKey())
+            .contentSize(blob.getSize())
+            .contentHash(blob.getHash());
+    }
+
+    private FileDTO toDtoWithContent(File file) {
+        FileDTO fileDTO = fileMapper.toDto(file);
+        if (file.getBlobKey() != null) {
+            fileDTO.setContent(blobService.read(file.getBlobKey()));
+        }
+        return fileDTO;
     }
 }
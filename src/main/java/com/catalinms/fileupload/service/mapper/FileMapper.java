@@ -7,11 +7,19 @@ import org.mapstruct.*;
 
 /**
  * Mapper for the entity File and its DTO FileDTO.
+ * <p>
+ * The content is not part of the entity: it is read from and written to the blob store by the FileService.
  */
 @Mapper(componentModel = "spring", uses = {})
 public interface FileMapper extends EntityMapper<FileDTO, File> {
 
+    @Mapping(target = "content", ignore = true)
+    FileDTO toDto(File file);
 
+    @Mapping(target = "blobKey", ignore = true)
+    @Mapping(target = "contentSize", ignore = true)
+    @Mapping(target = "contentHash", ignore = true)
+    File toEntity(FileDTO fileDTO);
 
     default File fromId(Long id) {
         if (id == null) {
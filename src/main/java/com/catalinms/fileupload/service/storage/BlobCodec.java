@@ -0,0 +1,159 @@
+package com.catalinms.fileupload.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encoding of a blob in the {@link BlobStore}.
+ * <p>
+ * The codec of a blob is recorded as a prefix of its key, so that each blob is decoded the way it was encoded,
+ * and the blobs stored before any codec existed are read as they are.
+ */
+public enum BlobCodec {
+
+    /**
+     * The blob is stored as it is.
+     */
+    NONE("", null) {
+        @Override
+        public InputStream encode(InputStream content, SeekPoints seekPoints) {
+            return content;
+        }
+
+        @Override
+        public InputStream decode(InputStream stored) {
+            return stored;
+        }
+
+        @Override
+        public InputStream decodeFrom(InputStream stored) {
+            return stored;
+        }
+    },
+
+    /**
+     * The blob is stored in the gzip format, as a single member which can be inflated from each of its seek
+     * points.
+     */
+    GZIP("gzip:", "gzip") {
+        @Override
+        public InputStream encode(InputStream content, SeekPoints seekPoints) {
+            return new GzipEncodingInputStream(content, seekPoints);
+        }
+
+        @Override
+        public InputStream decode(InputStream stored) throws IOException {
+            return new GZIPInputStream(stored);
+        }
+
+        @Override
+        public InputStream decodeFrom(InputStream stored) {
+            Inflater inflater = new Inflater(true);
+            // the trailer after the deflate stream is left unread
+            return new InflaterInputStream(stored, inflater) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+        }
+    };
+
+    private final String prefix;
+
+    private final String contentEncoding;
+
+    BlobCodec(String prefix, String contentEncoding) {
+        this.prefix = prefix;
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Get the HTTP content coding of the blobs encoded with this codec, so they can be sent as they are stored.
+     *
+     * @return the content coding, or null if the blobs are not encoded
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Encode a content, as it is read.
+     *
+     * @param content the stream of the content
+     * @return the stream of the encoded content, closing the given stream when closed
+     */
+    public InputStream encode(InputStream content) {
+        return encode(content, null);
+    }
+
+    /**
+     * Encode a content, as it is read, so that it can be decoded from each of its seek points. The offsets of the
+     * encoded bytes at the seek points are recorded as they are encoded, unless the content is stored as it is.
+     *
+     * @param content the stream of the content
+     * @param seekPoints the seek points of the content, or null if there are none
+     * @return the stream of the encoded content, closing the given stream when closed
+     */
+    public abstract InputStream encode(InputStream content, SeekPoints seekPoints);
+
+    /**
+     * Decode a stored content, as it is read.
+     *
+     * @param stored the stream of the encoded content
+     * @return the stream of the content, closing the given stream when closed
+     * @throws IOException if the encoded content could not be read
+     */
+    public abstract InputStream decode(InputStream stored) throws IOException;
+
+    /**
+     * Decode a stored content from one of its seek points, as it is read.
+     *
+     * @param stored the stream of the encoded content, from the offset recorded for the seek point
+     * @return the stream of the content from the seek point, closing the given stream when closed
+     * @throws IOException if the encoded content could not be read
+     */
+    public abstract InputStream decodeFrom(InputStream stored) throws IOException;
+
+    /**
+     * Get the key of a blob encoded with this codec.
+     *
+     * @param storeKey the key of the encoded blob in the blob store
+     * @return the key of the blob
+     */
+    public String toKey(String storeKey) {
+        return prefix + storeKey;
+    }
+
+    /**
+     * Get the codec of a blob.
+     *
+     * @param key the key of the blob
+     * @return the codec the blob was encoded with
+     */
+    public static BlobCodec fromKey(String key) {
+        for (BlobCodec codec : values()) {
+            if (codec != NONE && key.startsWith(codec.prefix)) {
+                return codec;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Get the key of a blob in the blob store.
+     *
+     * @param key the key of the blob
+     * @return the key of the encoded blob in the blob store
+     */
+    public static String toStoreKey(String key) {
+        return key.substring(fromKey(key).prefix.length());
+    }
+}
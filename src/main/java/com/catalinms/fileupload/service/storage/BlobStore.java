@@ -0,0 +1,75 @@
+package com.catalinms.fileupload.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Storage for the bytes of uploaded files.
+ * <p>
+ * Entities only keep the key returned by {@link #put(InputStream)}, so file contents never go
+ * through the database. Blobs are immutable: new content is always stored under a new key.
+ */
+public interface BlobStore {
+
+    /**
+     * Store a new blob.
+     *
+     * @param content the stream of the blob content, read until its end but not closed
+     * @return the key of the new blob
+     * @throws IOException if the blob could not be written
+     */
+    String put(InputStream content) throws IOException;
+
+    /**
+     * Store a new blob with the content of a local file. The file is left in place, and must not be modified
+     * afterwards, as the store may keep it as is.
+     *
+     * @param file the file to store
+     * @return the key of the new blob
+     * @throws IOException if the file could not be read, or the blob could not be written
+     */
+    default String importFile(Path file) throws IOException {
+        try (InputStream content = Files.newInputStream(file)) {
+            return put(content);
+        }
+    }
+
+    /**
+     * Open a blob for reading.
+     *
+     * @param key the key of the blob
+     * @return a stream of the blob content, to be closed by the caller
+     * @throws java.nio.file.NoSuchFileException if there is no blob with this key
+     * @throws IOException if the blob could not be read
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Get the path of a blob on the local filesystem, to read it through a {@link java.nio.channels.FileChannel}.
+     *
+     * @param key the key of the blob
+     * @return the path of the blob, or empty if the store does not keep blobs in local files
+     */
+    default Optional<Path> getLocalPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Check whether a blob exists.
+     *
+     * @param key the key of the blob
+     * @return true if there is a blob with this key
+     */
+    boolean exists(String key);
+
+    /**
+     * Delete a blob, doing nothing if it does not exist.
+     *
+     * @param key the key of the blob
+     * @throws IOException if the blob could not be deleted
+     */
+    void delete(String key) throws IOException;
+}
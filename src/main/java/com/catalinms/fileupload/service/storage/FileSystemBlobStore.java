@@ -0,0 +1,103 @@
+package com.catalinms.fileupload.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A {@link BlobStore} keeping each blob in its own file on the local filesystem.
+ * <p>
+ * Blobs are first written to a temporary file, then moved in place, so a partially written blob
+ * is never visible under its key.
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private final Logger log = LoggerFactory.getLogger(FileSystemBlobStore.class);
+
+    private static final String TEMPORARY_DIRECTORY = "tmp";
+
+    private final Path root;
+
+    private final Path temporaryDirectory;
+
+    public FileSystemBlobStore(Path root) throws IOException {
+        this.root = root.toAbsolutePath();
+        this.temporaryDirectory = Files.createDirectories(this.root.resolve(TEMPORARY_DIRECTORY));
+    }
+
+    @Override
+    public String put(InputStream content) throws IOException {
+        String key = UUID.randomUUID().toString();
+        Path temporaryFile = Files.createTempFile(temporaryDirectory, key, null);
+        try {
+            Files.copy(content, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            Path target = resolve(key);
+            Files.createDirectories(target.getParent());
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        return key;
+    }
+
+    /**
+     * Hard-link the file into the store when it is on the same filesystem, so its bytes are not copied.
+     */
+    @Override
+    public String importFile(Path file) throws IOException {
+        String key = UUID.randomUUID().toString();
+        Path temporaryFile = temporaryDirectory.resolve(key);
+        try {
+            Files.createLink(temporaryFile, file);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            log.debug("Could not link {} into the blob store, copying it", file, e);
+            return BlobStore.super.importFile(file);
+        }
+        try {
+            Path target = resolve(key);
+            Files.createDirectories(target.getParent());
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        return key;
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> getLocalPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Spread the blobs over sub-directories, named after the first characters of their key.
+     */
+    private Path resolve(String key) {
+        if (key.length() < 4 || key.contains("/") || key.contains("\\") || key.contains("..")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+}
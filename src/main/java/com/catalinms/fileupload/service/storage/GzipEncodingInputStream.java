@@ -0,0 +1,198 @@
+package com.catalinms.fileupload.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes a content in the gzip format as it is read, as a single gzip member.
+ * <p>
+ * The deflate stream is fully flushed at each of the {@link SeekPoints} of the content, if any: a full flush
+ * ends the output on a byte boundary and clears the compression history, so the stream can be inflated from
+ * there, at the cost of a few bytes of compression for each of them.
+ */
+final class GzipEncodingInputStream extends InputStream {
+
+    private static final byte[] HEADER = {
+        (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private static final int TRAILER_SIZE = 8;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream content;
+
+    private final SeekPoints seekPoints;
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+    private final CRC32 crc = new CRC32();
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+
+    private final byte[] output = new byte[BUFFER_SIZE];
+
+    private final byte[] single = new byte[1];
+
+    private int inputStart;
+
+    private int inputEnd;
+
+    private int outputStart;
+
+    private int outputEnd;
+
+    /**
+     * The number of bytes of the content given to the deflater.
+     */
+    private long position;
+
+    /**
+     * The number of encoded bytes written to the output buffer.
+     */
+    private long encodedPosition;
+
+    /**
+     * The last seek point recorded, or -1.
+     */
+    private long seekPoint = -1;
+
+    private boolean flushing;
+
+    private boolean contentEnded;
+
+    private boolean ended;
+
+    GzipEncodingInputStream(InputStream content, SeekPoints seekPoints) {
+        this.content = content;
+        this.seekPoints = seekPoints;
+        System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+        outputEnd = HEADER.length;
+        encodedPosition = HEADER.length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (outputStart == outputEnd && !fill()) {
+            return -1;
+        }
+        int read = Math.min(len, outputEnd - outputStart);
+        System.arraycopy(output, outputStart, b, off, read);
+        outputStart += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            content.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Fill the output buffer, once read, with the next encoded bytes.
+     *
+     * @return false if there are none left
+     */
+    private boolean fill() throws IOException {
+        outputStart = 0;
+        outputEnd = 0;
+        while (outputEnd == 0) {
+            if (flushing) {
+                deflate(Deflater.FULL_FLUSH);
+                // the flush is complete once it leaves room in the buffer
+                if (outputEnd < output.length) {
+                    flushing = false;
+                    seekPoints.encodedAt(position, encodedPosition);
+                }
+            } else if (deflater.finished()) {
+                if (ended) {
+                    return false;
+                }
+                writeTrailer();
+            } else if (!contentEnded && deflater.needsInput()) {
+                feed();
+            } else {
+                deflate(Deflater.NO_FLUSH);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Give the deflater the next bytes of the content, up to the next seek point, or start flushing it at a seek
+     * point.
+     */
+    private void feed() throws IOException {
+        long next = nextSeekPoint();
+        if (next == position) {
+            seekPoint = position;
+            if (position == 0) {
+                // the deflate stream starts right after the header
+                seekPoints.encodedAt(position, encodedPosition);
+            } else {
+                flushing = true;
+            }
+            return;
+        }
+        if (inputStart == inputEnd) {
+            int read = content.read(input);
+            if (read == -1) {
+                contentEnded = true;
+                deflater.finish();
+                return;
+            }
+            crc.update(input, 0, read);
+            inputStart = 0;
+            inputEnd = read;
+            // the seek points within the bytes just read are known now
+            next = nextSeekPoint();
+        }
+        int length = inputEnd - inputStart;
+        if (next > position && next < position + length) {
+            length = (int) (next - position);
+        }
+        deflater.setInput(input, inputStart, length);
+        inputStart += length;
+        position += length;
+    }
+
+    /**
+     * Get the next seek point to record, at or after the current position, or -1 if none is known.
+     */
+    private long nextSeekPoint() {
+        if (seekPoints == null) {
+            return -1;
+        }
+        return seekPoints.next(seekPoint == position ? position + 1 : position);
+    }
+
+    private void deflate(int flush) {
+        outputEnd = deflater.deflate(output, 0, output.length, flush);
+        encodedPosition += outputEnd;
+    }
+
+    private void writeTrailer() {
+        long crcValue = crc.getValue();
+        for (int i = 0; i < 4; i++) {
+            output[i] = (byte) (crcValue >> (8 * i));
+            output[i + 4] = (byte) (position >> (8 * i));
+        }
+        outputEnd = TRAILER_SIZE;
+        encodedPosition += TRAILER_SIZE;
+        ended = true;
+    }
+}
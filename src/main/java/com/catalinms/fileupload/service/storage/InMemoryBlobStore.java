@@ -0,0 +1,45 @@
+package com.catalinms.fileupload.service.storage;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link BlobStore} keeping the blobs on the heap, for tests and development.
+ */
+public class InMemoryBlobStore implements BlobStore {
+
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public String put(InputStream content) throws IOException {
+        String key = UUID.randomUUID().toString();
+        blobs.put(key, StreamUtils.copyToByteArray(content));
+        return key;
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        byte[] blob = blobs.get(key);
+        if (blob == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new ByteArrayInputStream(blob);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return blobs.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+    }
+}
@@ -0,0 +1,27 @@
+package com.catalinms.fileupload.service.storage;
+
+/**
+ * Offsets of a content from which its blob must be readable without decoding the content before them. A codec
+ * whose encoded bytes cannot be decoded from any offset makes each seek point a place they can be decoded from,
+ * and records the offset of the encoded bytes at which it is found.
+ */
+public interface SeekPoints {
+
+    /**
+     * Get the first seek point at or after an offset of the content. The seek points up to the number of bytes of
+     * the content read so far are always known, the ones after it may not be yet.
+     *
+     * @param offset the offset in the content
+     * @return the seek point, or -1 if none is known
+     */
+    long next(long offset);
+
+    /**
+     * Record the offset of the encoded bytes from which the content is decoded from a seek point. The seek points
+     * are recorded in order, each of them once.
+     *
+     * @param offset the seek point, in the content
+     * @param encodedOffset the offset in the encoded bytes
+     */
+    void encodedAt(long offset, long encodedOffset);
+}
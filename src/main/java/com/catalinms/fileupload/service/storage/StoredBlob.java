@@ -0,0 +1,46 @@
+package com.catalinms.fileupload.service.storage;
+
+/**
+ * The description of a blob written to the {@link BlobStore}.
+ */
+public final class StoredBlob {
+
+    private final String key;
+
+    private final long size;
+
+    private final String hash;
+
+    public StoredBlob(String key, long size, String hash) {
+        this.key = key;
+        this.size = size;
+        this.hash = hash;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the number of bytes of the blob
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest of the blob content
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "StoredBlob{" +
+            "key='" + key + '\'' +
+            ", size=" + size +
+            ", hash='" + hash + '\'' +
+            '}';
+    }
+}
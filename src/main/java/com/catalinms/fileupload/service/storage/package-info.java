@@ -0,0 +1,4 @@
+/**
+ * Storage of file contents, outside of the database.
+ */
+package com.catalinms.fileupload.service.storage;
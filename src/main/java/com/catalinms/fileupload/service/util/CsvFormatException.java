@@ -0,0 +1,41 @@
+package com.catalinms.fileupload.service.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a CSV content which is not valid, with the position of the first error.
+ * <p>
+ * It is an {@link IOException} so that it interrupts whoever reads the content, like the blob store.
+ */
+public class CsvFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+
+    private final long column;
+
+    public CsvFormatException(String reason, long line, long column) {
+        super(reason + " at line " + line + ", column " + column);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Get the line of the error.
+     *
+     * @return the line, from 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Get the column of the error, in characters.
+     *
+     * @return the column, from 1
+     */
+    public long getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,159 @@
+package com.catalinms.fileupload.service.util;
+
+import com.catalinms.fileupload.service.storage.SeekPoints;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the {@link RowIndex} of a CSV content while it is read, recording the byte offset of one row every
+ * interval rows, in a single pass.
+ * <p>
+ * The rows are found from the bytes, without decoding them, so only the charsets encoding the quote and the line
+ * feed as themselves, and never within another character, are {@link #supports(Charset) supported}.
+ * <p>
+ * The indexed rows are the {@link SeekPoints} of the content as it is read, so that its blob can be compressed
+ * while it is stored and still decoded from each of them.
+ */
+public class CsvRowIndexingInputStream extends FilterInputStream implements SeekPoints {
+
+    private static final List<Charset> SUPPORTED_CHARSETS = Arrays.asList(
+        StandardCharsets.UTF_8, StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1);
+
+    private static final byte[] UTF_8_BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+
+    private final int interval;
+
+    private final byte[] single = new byte[1];
+
+    private long[] offsets = new long[16];
+
+    private int offsetCount = 1;
+
+    private long[] encodedOffsets = new long[16];
+
+    private int encodedCount;
+
+    private long position;
+
+    private long row;
+
+    private boolean quoted;
+
+    private boolean bom = true;
+
+    public CsvRowIndexingInputStream(InputStream in, int interval) {
+        super(in);
+        this.interval = interval;
+    }
+
+    /**
+     * Check whether the rows of a content in a charset can be indexed.
+     *
+     * @param charset the charset of the content
+     * @return true if the content can be indexed
+     */
+    public static boolean supports(Charset charset) {
+        return SUPPORTED_CHARSETS.contains(charset);
+    }
+
+    /**
+     * Get the index of the rows read so far, complete once the content has been read to its end, with the offsets
+     * of their encoded bytes if they were all recorded.
+     *
+     * @return the row index
+     */
+    public RowIndex getRowIndex() {
+        return new RowIndex(interval, Arrays.copyOf(offsets, offsetCount),
+            encodedCount == offsetCount ? Arrays.copyOf(encodedOffsets, encodedCount) : null);
+    }
+
+    @Override
+    public long next(long offset) {
+        int index = Arrays.binarySearch(offsets, 0, offsetCount, offset);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < offsetCount ? offsets[index] : -1;
+    }
+
+    @Override
+    public void encodedAt(long offset, long encodedOffset) {
+        if (encodedCount < offsetCount && offsets[encodedCount] == offset) {
+            if (encodedCount == encodedOffsets.length) {
+                encodedOffsets = Arrays.copyOf(encodedOffsets, encodedCount * 2);
+            }
+            encodedOffsets[encodedCount++] = encodedOffset;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        for (int i = off; i < off + read; i++) {
+            index(b[i]);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] skipped = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (read == -1) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void index(byte b) {
+        if (bom && position < UTF_8_BOM.length) {
+            bom = b == UTF_8_BOM[(int) position];
+            if (bom && position == UTF_8_BOM.length - 1) {
+                // the first row starts after the byte order mark
+                offsets[0] = UTF_8_BOM.length;
+            }
+        }
+        position++;
+        if (b == '"') {
+            quoted = !quoted;
+        } else if (b == '\n' && !quoted) {
+            row++;
+            if (row % interval == 0) {
+                if (offsetCount == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsetCount * 2);
+                }
+                offsets[offsetCount++] = position;
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.catalinms.fileupload.service.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Checks that a content is valid CSV while it is read, in a single pass and with a fixed amount of memory, and
+ * fails the read with a {@link CsvFormatException} at the first error:
+ * <ul>
+ * <li>the content must be valid in its charset, a byte order mark being allowed at its start;</li>
+ * <li>the fields are quoted as in RFC 4180: a quote only starts a field, a quoted field ends with a quote
+ * followed by a comma or a line break, and the quotes within it are doubled;</li>
+ * <li>the lines end with CRLF or LF, a line break at the end of the content being optional;</li>
+ * <li>all the records have as many fields as the first one.</li>
+ * </ul>
+ * The bytes are passed through unchanged, so that the content is stored as it is validated.
+ */
+public class CsvValidatingInputStream extends FilterInputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private enum State {
+        FIELD_START, UNQUOTED, QUOTED, QUOTE_IN_QUOTED
+    }
+
+    private final CharsetDecoder decoder;
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    private final byte[] single = new byte[1];
+
+    private State state = State.FIELD_START;
+
+    private boolean started;
+
+    private boolean carriageReturn;
+
+    private boolean finished;
+
+    private long line = 1;
+
+    private long column;
+
+    private long quoteLine;
+
+    private long quoteColumn;
+
+    private int fieldCount = 1;
+
+    private int expectedFieldCount = -1;
+
+    public CsvValidatingInputStream(InputStream in, Charset charset) {
+        super(in);
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read == -1) {
+            finish();
+        } else {
+            validate(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] skipped = new byte[(int) Math.min(n, BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (read == -1) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void validate(byte[] b, int off, int len) throws IOException {
+        int position = off;
+        int end = off + len;
+        while (position < end) {
+            int count = Math.min(bytes.remaining(), end - position);
+            bytes.put(b, position, count);
+            position += count;
+            bytes.flip();
+            decode(false);
+            bytes.compact();
+        }
+    }
+
+    private void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        bytes.flip();
+        decode(true);
+        CoderResult result;
+        do {
+            result = decoder.flush(chars);
+            parse();
+        } while (result.isOverflow());
+        if (carriageReturn) {
+            endRecord();
+        } else if (state == State.QUOTED) {
+            throw new CsvFormatException("Quoted field is not closed", quoteLine, quoteColumn);
+        } else if (column > 0) {
+            endRecord();
+        }
+    }
+
+    private void decode(boolean endOfInput) throws IOException {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            parse();
+            if (result.isError()) {
+                throw new CsvFormatException("Invalid " + decoder.charset().name() + " content", line, column + 1);
+            }
+        } while (result.isOverflow());
+    }
+
+    private void parse() throws IOException {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            parse(chars.get());
+        }
+        chars.clear();
+    }
+
+    private void parse(char c) throws IOException {
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                return;
+            }
+        }
+        if (carriageReturn) {
+            if (c != '\n') {
+                throw new CsvFormatException("Carriage return is not followed by a line feed", line, column);
+            }
+            carriageReturn = false;
+            endRecord();
+            return;
+        }
+        column++;
+        switch (state) {
+            case QUOTED:
+                if (c == '"') {
+                    state = State.QUOTE_IN_QUOTED;
+                } else if (c == '\n') {
+                    line++;
+                    column = 0;
+                }
+                return;
+            case QUOTE_IN_QUOTED:
+                if (c == '"') {
+                    state = State.QUOTED;
+                    return;
+                }
+                if (c != ',' && c != '\r' && c != '\n') {
+                    throw new CsvFormatException("Quoted field is followed by other characters", line, column);
+                }
+                break;
+            case FIELD_START:
+                if (c == '"') {
+                    state = State.QUOTED;
+                    quoteLine = line;
+                    quoteColumn = column;
+                    return;
+                }
+                break;
+            case UNQUOTED:
+                if (c == '"') {
+                    throw new CsvFormatException("Quote in an unquoted field", line, column);
+                }
+                break;
+        }
+        if (c == ',') {
+            fieldCount++;
+            state = State.FIELD_START;
+        } else if (c == '\r') {
+            carriageReturn = true;
+        } else if (c == '\n') {
+            endRecord();
+        } else {
+            state = State.UNQUOTED;
+        }
+    }
+
+    private void endRecord() throws CsvFormatException {
+        if (expectedFieldCount == -1) {
+            expectedFieldCount = fieldCount;
+        } else if (fieldCount != expectedFieldCount) {
+            throw new CsvFormatException("Record has " + fieldCount + " fields instead of " + expectedFieldCount,
+                line, column);
+        }
+        fieldCount = 1;
+        state = State.FIELD_START;
+        line++;
+        column = 0;
+    }
+}
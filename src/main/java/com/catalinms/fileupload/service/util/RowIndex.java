@@ -0,0 +1,220 @@
+package com.catalinms.fileupload.service.util;
+
+import com.catalinms.fileupload.service.storage.SeekPoints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Sparse index of the rows of a CSV content: the byte offset of one row every interval rows, so that a row is
+ * reached by seeking to the indexed row before it, then skipping less than an interval of rows.
+ * <p>
+ * The rows are counted from 0, the header being row 0 when there is one. A row ends with a line feed which is
+ * not within a quoted field, so a row may span several lines.
+ * <p>
+ * The indexed rows are the {@link SeekPoints} of the content: when its blob is compressed, the index also holds
+ * the offsets of the encoded bytes from which each indexed row is decoded, recorded while the content is stored.
+ */
+public final class RowIndex implements SeekPoints {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int interval;
+
+    private final long[] offsets;
+
+    private final long[] encodedOffsets;
+
+    private int encodedCount;
+
+    /**
+     * Create a row index, without encoded offsets.
+     *
+     * @param interval the number of rows between two indexed rows
+     * @param offsets the byte offsets of the rows 0, interval, 2 * interval..., at least the one of row 0
+     */
+    public RowIndex(int interval, long[] offsets) {
+        this.interval = interval;
+        this.offsets = offsets;
+        this.encodedOffsets = new long[offsets.length];
+    }
+
+    /**
+     * Create a row index.
+     *
+     * @param interval the number of rows between two indexed rows
+     * @param offsets the byte offsets of the rows 0, interval, 2 * interval..., at least the one of row 0
+     * @param encodedOffsets the offsets of the encoded bytes of the blob at each indexed row, or null if unknown
+     */
+    public RowIndex(int interval, long[] offsets, long[] encodedOffsets) {
+        this(interval, offsets);
+        if (encodedOffsets != null) {
+            System.arraycopy(encodedOffsets, 0, this.encodedOffsets, 0, offsets.length);
+            this.encodedCount = offsets.length;
+        }
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Get the last indexed row at or before a row.
+     *
+     * @param row the row to reach
+     * @return the indexed row to seek to
+     */
+    public long getIndexedRow(long row) {
+        return (long) indexOf(row) * interval;
+    }
+
+    /**
+     * Get the byte offset of the last indexed row at or before a row.
+     *
+     * @param row the row to reach
+     * @return the byte offset of the indexed row to seek to
+     */
+    public long getOffset(long row) {
+        return offsets[indexOf(row)];
+    }
+
+    /**
+     * Get the offset of the encoded bytes of the blob from which the last indexed row at or before a row is
+     * decoded.
+     *
+     * @param row the row to reach
+     * @return the offset in the encoded bytes, or empty if the index does not hold them, as the blob is stored as
+     * it is, or was not stored along with the index
+     */
+    public OptionalLong getEncodedOffset(long row) {
+        return hasEncodedOffsets() ? OptionalLong.of(encodedOffsets[indexOf(row)]) : OptionalLong.empty();
+    }
+
+    /**
+     * Get this index without its encoded offsets, for another blob holding the same content.
+     *
+     * @return the index of the rows alone
+     */
+    public RowIndex withoutEncodedOffsets() {
+        return new RowIndex(interval, offsets);
+    }
+
+    @Override
+    public long next(long offset) {
+        int index = Arrays.binarySearch(offsets, offset);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < offsets.length ? offsets[index] : -1;
+    }
+
+    @Override
+    public void encodedAt(long offset, long encodedOffset) {
+        if (encodedCount < offsets.length && offsets[encodedCount] == offset) {
+            encodedOffsets[encodedCount++] = encodedOffset;
+        }
+    }
+
+    /**
+     * Serialize the index, as its interval and number of indexed rows, followed by their offsets, then by their
+     * encoded offsets if the index holds them.
+     *
+     * @return the serialized index
+     */
+    public byte[] toByteArray() {
+        int size = Integer.BYTES * 2 + offsets.length * Long.BYTES * (hasEncodedOffsets() ? 2 : 1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(interval);
+            out.writeInt(offsets.length);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            if (hasEncodedOffsets()) {
+                for (long encodedOffset : encodedOffsets) {
+                    out.writeLong(encodedOffset);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize an index.
+     *
+     * @param bytes the index serialized by {@link #toByteArray()}
+     * @return the index
+     */
+    public static RowIndex fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int interval = buffer.getInt();
+        long[] offsets = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(offsets);
+        buffer.position(buffer.position() + offsets.length * Long.BYTES);
+        long[] encodedOffsets = null;
+        if (buffer.hasRemaining()) {
+            encodedOffsets = new long[offsets.length];
+            buffer.asLongBuffer().get(encodedOffsets);
+        }
+        return new RowIndex(interval, offsets, encodedOffsets);
+    }
+
+    /**
+     * Copy rows of a CSV content, read from the start of a row.
+     *
+     * @param in the content, from the start of a row
+     * @param skip the number of rows to skip
+     * @param count the number of rows to copy, fewer being copied if the content ends before, and none if it is
+     * not positive
+     * @param out the stream to copy the rows to, left open
+     * @throws IOException if the content could not be read or the rows written
+     */
+    public static void copyRows(InputStream in, long skip, long count, OutputStream out) throws IOException {
+        if (count <= 0) {
+            return;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long end = skip + count;
+        long row = 0;
+        boolean quoted = false;
+        int read;
+        while (row < end && (read = in.read(buffer)) != -1) {
+            // the start of the bytes of the buffer to copy, or -1 while skipping
+            int start = row >= skip ? 0 : -1;
+            for (int i = 0; i < read && row < end; i++) {
+                if (buffer[i] == '"') {
+                    quoted = !quoted;
+                } else if (buffer[i] == '\n' && !quoted) {
+                    row++;
+                    if (row == skip) {
+                        start = i + 1;
+                    } else if (row == end) {
+                        out.write(buffer, start, i + 1 - start);
+                        start = -1;
+                    }
+                }
+            }
+            if (start != -1) {
+                out.write(buffer, start, read - start);
+            }
+        }
+    }
+
+    private boolean hasEncodedOffsets() {
+        return encodedCount == offsets.length;
+    }
+
+    private int indexOf(long row) {
+        return (int) Math.min(row / interval, offsets.length - 1);
+    }
+}
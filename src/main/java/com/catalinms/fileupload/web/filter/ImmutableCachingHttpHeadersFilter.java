@@ -0,0 +1,95 @@
+package com.catalinms.fileupload.web.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets the caching HTTP headers of content-addressed resources.
+ * <p>
+ * The content behind these URLs never changes, as the URL is derived from it, so it can be cached for a year and
+ * is never revalidated by browsers that support the {@code immutable} directive. Only the responses carrying that
+ * content are cached: 200 (OK), 206 (Partial Content) and 304 (Not Modified). Any other status, set by the handler
+ * or by an exception leaving it, makes the response uncacheable.
+ */
+public class ImmutableCachingHttpHeadersFilter implements Filter {
+
+    public static final long MAX_AGE_SECONDS = TimeUnit.DAYS.toSeconds(365);
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        setCachingHeaders(httpResponse, HttpServletResponse.SC_OK);
+        try {
+            chain.doFilter(request, new StatusCachingResponse(httpResponse));
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (!httpResponse.isCommitted()) {
+                setCachingHeaders(httpResponse, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            throw e;
+        }
+    }
+
+    private static void setCachingHeaders(HttpServletResponse response, int status) {
+        if (status == HttpServletResponse.SC_OK || status == HttpServletResponse.SC_PARTIAL_CONTENT
+            || status == HttpServletResponse.SC_NOT_MODIFIED) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + MAX_AGE_SECONDS + ", immutable");
+            response.setDateHeader(HttpHeaders.EXPIRES,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MAX_AGE_SECONDS));
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            response.setHeader(HttpHeaders.EXPIRES, "0");
+        }
+    }
+
+    /**
+     * Updates the caching headers whenever the status of the response is set.
+     */
+    private static final class StatusCachingResponse extends HttpServletResponseWrapper {
+
+        StatusCachingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            setCachingHeaders(this, sc);
+            super.setStatus(sc);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(int sc, String sm) {
+            setCachingHeaders(this, sc);
+            super.setStatus(sc, sm);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setCachingHeaders(this, sc);
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setCachingHeaders(this, sc);
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package com.catalinms.fileupload.web.filter;
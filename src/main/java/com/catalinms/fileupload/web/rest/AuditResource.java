@@ -1,8 +1,10 @@
 package com.catalinms.fileupload.web.rest;
 
 import com.catalinms.fileupload.service.AuditEventService;
+import com.catalinms.fileupload.web.rest.util.JsonStreamUtil;
 import com.catalinms.fileupload.web.rest.util.PaginationUtil;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
@@ -12,6 +14,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.List;
@@ -25,8 +29,11 @@ public class AuditResource {
 
     private final AuditEventService auditEventService;
 
-    public AuditResource(AuditEventService auditEventService) {
+    private final ObjectMapper objectMapper;
+
+    public AuditResource(AuditEventService auditEventService, ObjectMapper objectMapper) {
         this.auditEventService = auditEventService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -42,6 +49,17 @@ public class AuditResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET /audits?stream=true : get all the AuditEvents, streamed from a database cursor as they are read.
+     *
+     * @param response the response, with status 200 (OK) and the list of AuditEvents in body
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping(params = "stream=true")
+    public void streamAll(HttpServletResponse response) throws IOException {
+        JsonStreamUtil.writeArray(objectMapper, response, auditEventService::streamAll);
+    }
+
     /**
      * GET  /audits : get a page of AuditEvents between the fromDate and toDate.
      *
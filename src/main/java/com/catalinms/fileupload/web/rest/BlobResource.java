@@ -0,0 +1,71 @@
+package com.catalinms.fileupload.web.rest;
+
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.FileContentService;
+import com.catalinms.fileupload.service.FileService;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.web.rest.util.DownloadUtil;
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * REST controller for reading stored contents by their hash.
+ * <p>
+ * These URLs are content-addressed: they are cached as immutable by the
+ * {@link com.catalinms.fileupload.web.filter.ImmutableCachingHttpHeadersFilter}.
+ */
+@RestController
+@RequestMapping("/api")
+public class BlobResource {
+
+    private final Logger log = LoggerFactory.getLogger(BlobResource.class);
+
+    private final FileContentService fileContentService;
+
+    private final FileService fileService;
+
+    private final BlobService blobService;
+
+    public BlobResource(FileContentService fileContentService, FileService fileService, BlobService blobService) {
+        this.fileContentService = fileContentService;
+        this.fileService = fileService;
+        this.blobService = blobService;
+    }
+
+    /**
+     * GET  /blobs/:hash : get the content with the given SHA-256 hash, or the byte ranges requested by the Range
+     * header.
+     *
+     * @param hash the SHA-256 hash of the content, in hex
+     * @param request the current request
+     * @param response the response, with status 200 (OK) and the raw content in body, with status 206 (Partial Content)
+     * and the requested ranges in body, with status 416 (Requested Range Not Satisfiable), or with status 404 (Not Found)
+     * @throws IOException if the content could not be read or written
+     */
+    @GetMapping("/blobs/{hash}")
+    @Timed
+    public void getBlob(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to get blob : {}", hash);
+        Optional<FileSummaryDTO> blob = fileContentService.findSummaryByContentHash(hash);
+        if (!blob.isPresent()) {
+            blob = fileService.findSummaryByContentHash(hash);
+        }
+        if (!blob.isPresent() || blob.get().getBlobKey() == null) {
+            // the content may be uploaded later, under the same URL: the error is not cached
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        DownloadUtil.writeContent(blob.get(), blobService, request, response);
+    }
+}
@@ -1,26 +1,47 @@
 package com.catalinms.fileupload.web.rest;
 
 import com.catalinms.fileupload.domain.FileContent;
-import com.catalinms.fileupload.repository.FileContentRepository;
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.FileContentService;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.service.dto.FileUploadDTO;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
+import com.catalinms.fileupload.service.util.RowIndex;
 import com.catalinms.fileupload.web.rest.errors.BadRequestAlertException;
 import com.catalinms.fileupload.web.rest.errors.InternalServerErrorException;
+import com.catalinms.fileupload.web.rest.util.DownloadUtil;
+import com.catalinms.fileupload.web.rest.util.ETagUtil;
 import com.catalinms.fileupload.web.rest.util.HeaderUtil;
+import com.catalinms.fileupload.web.rest.util.JsonStreamUtil;
+import com.catalinms.fileupload.web.rest.util.PaginationUtil;
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for managing FileContent.
@@ -33,25 +54,30 @@ public class FileContentResource {
 
     private static final String ENTITY_NAME = "fileContent";
 
-    private final FileContentRepository fileContentRepository;
+    private final FileContentService fileContentService;
 
-    public FileContentResource(FileContentRepository fileContentRepository) {
-        this.fileContentRepository = fileContentRepository;
+    private final BlobService blobService;
+
+    private final ObjectMapper objectMapper;
+
+    public FileContentResource(FileContentService fileContentService, BlobService blobService, ObjectMapper objectMapper) {
+        this.fileContentService = fileContentService;
+        this.blobService = blobService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * POST  /file-contents : Create a new fileContent.
      *
-     * @param fileContent the fileContent to update
-     * @return the ResponseEntity with status 201 (Created) and with body the new fileContent, or with status 400 (Bad Request) if the fileContent has already an ID
+     * @param fileContent the multipart file to store
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileContent, without its content,
+     * or with status 400 (Bad Request) if the file is an invalid CSV file
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PostMapping("/file-contents")
     @Timed
     public ResponseEntity<FileContent> createFileContent(@RequestParam("file") MultipartFile fileContent) throws URISyntaxException {
         log.debug("REST request to save FileContent : {}", fileContent);
-
-        // todo validate only csv if required
         FileContent result = saveMultipartFile(fileContent);
 
         return ResponseEntity.created(new URI("/api/file-contents/" + result.getId()))
@@ -59,6 +85,53 @@ public class FileContentResource {
             .body(result);
     }
 
+    /**
+     * POST  /file-contents/batch : Create many fileContents at once, in a single transaction.
+     *
+     * @param files the multipart files to store
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileContents, without their content,
+     * in the order of the parts
+     */
+    @PostMapping("/file-contents/batch")
+    @Timed
+    public ResponseEntity<List<FileContent>> createFileContents(@RequestParam("files") List<MultipartFile> files) {
+        log.debug("REST request to save {} FileContents", files.size());
+        List<FileUploadDTO> uploads = files.stream()
+            .map(file -> new FileUploadDTO(getFileName(file), file.getContentType(), file))
+            .collect(Collectors.toList());
+        List<FileContent> result;
+        try {
+            result = fileContentService.createAll(uploads);
+        } catch (UncheckedIOException e) {
+            throw new InternalServerErrorException("Failed to upload files");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createAlert(result.size() + " " + ENTITY_NAME + "s are created", String.valueOf(result.size())))
+            .body(result);
+    }
+
+    /**
+     * POST  /file-contents/instant : Create a new fileContent from a content the server already stores, without
+     * uploading it. The client sends the hash and size of its content first, and only uploads it if it is unknown.
+     *
+     * @param upload the name and content type of the file, with the SHA-256 hash and size of its content
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileContent, without its content,
+     * or with status 404 (Not Found) if no stored content matches the hash and size
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping("/file-contents/instant")
+    @Timed
+    public ResponseEntity<FileContent> createFileContentFromExisting(@Valid @RequestBody InstantUploadDTO upload) throws URISyntaxException {
+        log.debug("REST request to save FileContent from existing content : {}", upload);
+        Optional<FileContent> result = fileContentService.createFromExisting(upload);
+        if (!result.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.created(new URI("/api/file-contents/" + result.get().getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.get().getId().toString()))
+            .body(result.get());
+    }
+
     /**
      * PUT  /file-contents : Updates an existing fileContent.
      *
@@ -75,38 +148,125 @@ public class FileContentResource {
         if (fileContent.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        FileContent result = fileContentRepository.save(fileContent);
+        FileContent result = fileContentService.update(fileContent);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, fileContent.getId().toString()))
             .body(result);
     }
 
     /**
-     * GET  /file-contents : get all the fileContents.
+     * GET  /file-contents : get a page of fileContent summaries, without their content.
+     * <p>
+     * Pages are fetched with a cursor: the "next" link of the Link header points to the page after the last
+     * element of the current one.
      *
-     * @return the ResponseEntity with status 200 (OK) and the list of fileContents in body
+     * @param after the id after which the page starts, or null for the first page
+     * @param pageable the pagination information, only its size is used
+     * @return the ResponseEntity with status 200 (OK) and the list of fileContent summaries in body
      */
     @GetMapping("/file-contents")
     @Timed
-    public List<FileContent> getAllFileContents() {
-        log.debug("REST request to get all FileContents");
-        return fileContentRepository.findAll();
+    public ResponseEntity<List<FileSummaryDTO>> getAllFileContents(@RequestParam(value = "after", required = false) Long after, Pageable pageable) {
+        log.debug("REST request to get a page of FileContents after : {}", after);
+        Slice<FileSummaryDTO> slice = fileContentService.findAll(after, pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, FileSummaryDTO::getId, "/api/file-contents");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /file-contents?stream=true : get all the fileContent summaries, without their content, streamed from a
+     * database cursor as they are read.
+     *
+     * @param response the response, with status 200 (OK) and the list of fileContent summaries in body
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping(value = "/file-contents", params = "stream=true")
+    @Timed
+    public void streamAllFileContents(HttpServletResponse response) throws IOException {
+        log.debug("REST request to stream all FileContents");
+        JsonStreamUtil.writeArray(objectMapper, response, fileContentService::streamAll);
     }
 
     /**
      * GET  /file-contents/:id : get the "id" fileContent.
      *
      * @param id the id of the fileContent to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the fileContent, or with status 404 (Not Found)
+     * @param webRequest the current request, checked against the ETag of the fileContent
+     * @return the ResponseEntity with status 200 (OK) and with body the fileContent, with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @GetMapping("/file-contents/{id}")
     @Timed
-    public ResponseEntity<FileContent> getFileContent(@PathVariable Long id) {
+    public ResponseEntity<FileContent> getFileContent(@PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get FileContent : {}", id);
-        Optional<FileContent> fileContent = fileContentRepository.findById(id);
+        Optional<FileSummaryDTO> summary = fileContentService.findSummary(id);
+        if (summary.isPresent() && webRequest.checkNotModified(ETagUtil.getEntityETag(summary.get()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        Optional<FileContent> fileContent = summary.flatMap(file -> fileContentService.findOne(id));
         return ResponseUtil.wrapOrNotFound(fileContent);
     }
 
+    /**
+     * GET  /file-contents/:id/data : get the content of the "id" fileContent, or the byte ranges requested by the
+     * Range header.
+     *
+     * @param id the id of the fileContent whose content to retrieve
+     * @param request the current request
+     * @param response the response, with status 200 (OK) and the raw content in body, with status 206 (Partial Content)
+     * and the requested ranges in body, with status 416 (Requested Range Not Satisfiable), or with status 404 (Not Found)
+     * @throws IOException if the content could not be read or written
+     */
+    @GetMapping("/file-contents/{id}/data")
+    @Timed
+    public void getFileContentData(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to get FileContent data : {}", id);
+        Optional<FileSummaryDTO> fileContent = fileContentService.findSummary(id)
+            .filter(summary -> summary.getBlobKey() != null);
+        if (!fileContent.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        DownloadUtil.writeContent(fileContent.get(), blobService, request, response);
+    }
+
+    /**
+     * GET  /file-contents/:id/rows?from=&count= : get a range of rows of the "id" fileContent, a CSV file, read
+     * from the indexed row before the first one, and decoded from there if it is compressed. The rows are counted from 0, the header being row 0.
+     *
+     * @param id the id of the fileContent whose rows to retrieve
+     * @param from the first row to retrieve
+     * @param count the number of rows to retrieve, fewer being returned at the end of the file
+     * @param response the response, with status 200 (OK) and the rows in body, with status 400 (Bad Request) if the
+     * range is not valid, or with status 404 (Not Found) if there is no such fileContent or its rows are not indexed
+     * @throws IOException if the content could not be read or written
+     */
+    @GetMapping("/file-contents/{id}/rows")
+    @Timed
+    public void getFileContentRows(@PathVariable Long id, @RequestParam("from") long from,
+                                   @RequestParam("count") long count, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get {} rows from {} of FileContent : {}", count, from, id);
+        if (from < 0 || count <= 0) {
+            throw new BadRequestAlertException("Invalid row range", ENTITY_NAME, "invalidrowrange");
+        }
+        Optional<FileSummaryDTO> fileContent = fileContentService.findSummary(id)
+            .filter(summary -> summary.getBlobKey() != null);
+        Optional<RowIndex> rowIndex = fileContent.flatMap(summary -> fileContentService.findRowIndex(summary.getBlobKey()));
+        if (!rowIndex.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType(fileContent.get().getContentContentType());
+        String blobKey = fileContent.get().getBlobKey();
+        OptionalLong encodedOffset = rowIndex.get().getEncodedOffset(from);
+        try (InputStream content = encodedOffset.isPresent()
+            ? blobService.openAtSeekPoint(blobKey, encodedOffset.getAsLong())
+            : blobService.open(blobKey, rowIndex.get().getOffset(from))) {
+            RowIndex.copyRows(content, from - rowIndex.get().getIndexedRow(from), count, response.getOutputStream());
+        }
+    }
+
     /**
      * DELETE  /file-contents/:id : delete the "id" fileContent.
      *
@@ -117,20 +277,20 @@ public class FileContentResource {
     @Timed
     public ResponseEntity<Void> deleteFileContent(@PathVariable Long id) {
         log.debug("REST request to delete FileContent : {}", id);
-
-        fileContentRepository.deleteById(id);
+        fileContentService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     private FileContent saveMultipartFile(MultipartFile fileContent) {
-        String fileName = StringUtils.cleanPath(Objects.requireNonNull(fileContent.getOriginalFilename()));
-
-        try {
-            FileContent file = new FileContent(fileName, fileContent.getBytes(), fileContent.getContentType());
-
-            return fileContentRepository.save(file);
+        // the multipart body is spooled to disk by the container, stream it to the blob store from there
+        try (InputStream content = fileContent.getInputStream()) {
+            return fileContentService.create(getFileName(fileContent), fileContent.getContentType(), content);
         } catch (IOException e) {
             throw new InternalServerErrorException("Failed to upload file");
         }
     }
+
+    private static String getFileName(MultipartFile fileContent) {
+        return StringUtils.cleanPath(Objects.requireNonNull(fileContent.getOriginalFilename()));
+    }
 }
@@ -1,21 +1,45 @@
 package com.catalinms.fileupload.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.catalinms.fileupload.service.BlobService;
 import com.catalinms.fileupload.service.FileService;
 import com.catalinms.fileupload.web.rest.errors.BadRequestAlertException;
+import com.catalinms.fileupload.web.rest.errors.InternalServerErrorException;
+import com.catalinms.fileupload.web.rest.util.DownloadUtil;
+import com.catalinms.fileupload.web.rest.util.ETagUtil;
 import com.catalinms.fileupload.web.rest.util.HeaderUtil;
+import com.catalinms.fileupload.web.rest.util.JsonStreamUtil;
+import com.catalinms.fileupload.web.rest.util.PaginationUtil;
 import com.catalinms.fileupload.service.dto.FileDTO;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -31,8 +55,14 @@ public class FileResource {
 
     private final FileService fileService;
 
-    public FileResource(FileService fileService) {
+    private final BlobService blobService;
+
+    private final ObjectMapper objectMapper;
+
+    public FileResource(FileService fileService, BlobService blobService, ObjectMapper objectMapper) {
         this.fileService = fileService;
+        this.blobService = blobService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -55,6 +85,72 @@ public class FileResource {
             .body(result);
     }
 
+    /**
+     * POST  /files : Create a new file from a multipart upload, streaming its content to the blob store.
+     *
+     * @param file the multipart file, with its name and content type
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileDTO, without its content
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping(value = "/files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Timed
+    public ResponseEntity<FileDTO> uploadFile(@RequestParam("file") MultipartFile file) throws URISyntaxException {
+        log.debug("REST request to upload File : {}", file.getOriginalFilename());
+        String name = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+        FileDTO result;
+        try (InputStream content = file.getInputStream()) {
+            result = fileService.create(name, file.getContentType(), content);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Failed to upload file");
+        }
+        return ResponseEntity.created(new URI("/api/files/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * POST  /files : Create a new file from the raw bytes of the request body, streaming them to the blob store.
+     * The name of the file is given by the filename of the Content-Disposition header, and its content type is
+     * guessed from the name.
+     *
+     * @param request the request, whose body is the file content
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileDTO, without its content,
+     * or with status 400 (Bad Request) if there is no file name
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     * @throws IOException if the request body could not be read
+     */
+    @PostMapping(value = "/files", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Timed
+    public ResponseEntity<FileDTO> uploadRawFile(HttpServletRequest request) throws URISyntaxException, IOException {
+        String name = getRawFileName(request);
+        log.debug("REST request to upload raw File : {}", name);
+        FileDTO result = fileService.create(name, getRawFileContentType(name), request.getInputStream());
+        return ResponseEntity.created(new URI("/api/files/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * POST  /files/instant : Create a new file from a content the server already stores, without uploading it.
+     *
+     * @param upload the name and content type of the file, with the SHA-256 hash and size of its content
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileDTO,
+     * or with status 404 (Not Found) if no stored content matches the hash and size
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping("/files/instant")
+    @Timed
+    public ResponseEntity<FileDTO> createFileFromExisting(@Valid @RequestBody InstantUploadDTO upload) throws URISyntaxException {
+        log.debug("REST request to save File from existing content : {}", upload);
+        Optional<FileDTO> result = fileService.createFromExisting(upload);
+        if (!result.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.created(new URI("/api/files/" + result.get().getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.get().getId().toString()))
+            .body(result.get());
+    }
+
     /**
      * PUT  /files : Updates an existing file.
      *
@@ -78,31 +174,123 @@ public class FileResource {
     }
 
     /**
-     * GET  /files : get all the files.
+     * PUT  /files/:id : Replace the "id" file with a multipart upload, streaming its content to the blob store.
+     *
+     * @param id the id of the file to update
+     * @param file the multipart file, with its name and content type
+     * @return the ResponseEntity with status 200 (OK) and with body the updated fileDTO, without its content,
+     * or with status 404 (Not Found)
+     */
+    @PutMapping(value = "/files/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Timed
+    public ResponseEntity<FileDTO> uploadFileUpdate(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+        log.debug("REST request to upload File {} : {}", id, file.getOriginalFilename());
+        String name = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+        Optional<FileDTO> result;
+        try (InputStream content = file.getInputStream()) {
+            result = fileService.update(id, name, file.getContentType(), content);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Failed to upload file");
+        }
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()));
+    }
+
+    /**
+     * PUT  /files/:id : Replace the "id" file with the raw bytes of the request body, streaming them to the blob
+     * store. The name of the file is given by the filename of the Content-Disposition header, and its content type
+     * is guessed from the name.
+     *
+     * @param id the id of the file to update
+     * @param request the request, whose body is the new file content
+     * @return the ResponseEntity with status 200 (OK) and with body the updated fileDTO, without its content,
+     * or with status 400 (Bad Request) if there is no file name, or with status 404 (Not Found)
+     * @throws IOException if the request body could not be read
+     */
+    @PutMapping(value = "/files/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Timed
+    public ResponseEntity<FileDTO> uploadRawFileUpdate(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        String name = getRawFileName(request);
+        log.debug("REST request to upload raw File {} : {}", id, name);
+        Optional<FileDTO> result = fileService.update(id, name, getRawFileContentType(name), request.getInputStream());
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()));
+    }
+
+    /**
+     * GET  /files : get a page of file summaries, without their content.
+     * <p>
+     * Pages are fetched with a cursor: the "next" link of the Link header points to the page after the last
+     * element of the current one.
      *
-     * @return the ResponseEntity with status 200 (OK) and the list of files in body
+     * @param after the id after which the page starts, or null for the first page
+     * @param pageable the pagination information, only its size is used
+     * @return the ResponseEntity with status 200 (OK) and the list of file summaries in body
      */
     @GetMapping("/files")
     @Timed
-    public List<FileDTO> getAllFiles() {
-        log.debug("REST request to get all Files");
-        return fileService.findAll();
+    public ResponseEntity<List<FileSummaryDTO>> getAllFiles(@RequestParam(value = "after", required = false) Long after, Pageable pageable) {
+        log.debug("REST request to get a page of Files after : {}", after);
+        Slice<FileSummaryDTO> slice = fileService.findAll(after, pageable);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, FileSummaryDTO::getId, "/api/files");
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * GET  /files?stream=true : get all the file summaries, without their content, streamed from a database cursor
+     * as they are read.
+     *
+     * @param response the response, with status 200 (OK) and the list of file summaries in body
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping(value = "/files", params = "stream=true")
+    @Timed
+    public void streamAllFiles(HttpServletResponse response) throws IOException {
+        log.debug("REST request to stream all Files");
+        JsonStreamUtil.writeArray(objectMapper, response, fileService::streamAll);
     }
 
     /**
      * GET  /files/:id : get the "id" file.
      *
      * @param id the id of the fileDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the fileDTO, or with status 404 (Not Found)
+     * @param webRequest the current request, checked against the ETag of the fileDTO
+     * @return the ResponseEntity with status 200 (OK) and with body the fileDTO, with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @GetMapping("/files/{id}")
     @Timed
-    public ResponseEntity<FileDTO> getFile(@PathVariable Long id) {
+    public ResponseEntity<FileDTO> getFile(@PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get File : {}", id);
-        Optional<FileDTO> fileDTO = fileService.findOne(id);
+        Optional<FileSummaryDTO> file = fileService.findSummary(id);
+        if (file.isPresent() && webRequest.checkNotModified(ETagUtil.getEntityETag(file.get()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        Optional<FileDTO> fileDTO = file.flatMap(summary -> fileService.findOne(id));
         return ResponseUtil.wrapOrNotFound(fileDTO);
     }
 
+    /**
+     * GET  /files/:id/data : get the content of the "id" file, or the byte ranges requested by the Range header.
+     *
+     * @param id the id of the file whose content to retrieve
+     * @param request the current request
+     * @param response the response, with status 200 (OK) and the raw content in body, with status 206 (Partial Content)
+     * and the requested ranges in body, with status 416 (Requested Range Not Satisfiable), or with status 404 (Not Found)
+     * @throws IOException if the content could not be read or written
+     */
+    @GetMapping("/files/{id}/data")
+    @Timed
+    public void getFileData(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to get File data : {}", id);
+        Optional<FileSummaryDTO> file = fileService.findSummary(id)
+            .filter(summary -> summary.getBlobKey() != null);
+        if (!file.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        DownloadUtil.writeContent(file.get(), blobService, request, response);
+    }
+
     /**
      * DELETE  /files/:id : delete the "id" file.
      *
@@ -116,4 +304,26 @@ public class FileResource {
         fileService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
+
+    private String getRawFileName(HttpServletRequest request) {
+        String contentDisposition = request.getHeader(HttpHeaders.CONTENT_DISPOSITION);
+        String name = null;
+        if (contentDisposition != null) {
+            try {
+                name = ContentDisposition.parse(contentDisposition).getFilename();
+            } catch (IllegalArgumentException e) {
+                log.debug("Invalid Content-Disposition header : {}", contentDisposition);
+            }
+        }
+        if (!StringUtils.hasText(name)) {
+            throw new BadRequestAlertException("A file name is required in the Content-Disposition header", ENTITY_NAME, "namenull");
+        }
+        return StringUtils.cleanPath(name);
+    }
+
+    private static String getRawFileContentType(String name) {
+        return MediaTypeFactory.getMediaType(name)
+            .map(MediaType::toString)
+            .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
 }
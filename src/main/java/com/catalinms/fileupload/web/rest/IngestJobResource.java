@@ -0,0 +1,80 @@
+package com.catalinms.fileupload.web.rest;
+
+import com.catalinms.fileupload.domain.IngestJob;
+import com.catalinms.fileupload.service.IngestJobService;
+import com.catalinms.fileupload.web.rest.errors.InternalServerErrorException;
+import com.catalinms.fileupload.web.rest.util.HeaderUtil;
+import com.codahale.metrics.annotation.Timed;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * REST controller for uploading a FileContent asynchronously, through an IngestJob.
+ * <p>
+ * The upload is accepted as soon as it is received, and the client polls its job until the FileContent is
+ * created, or the job fails.
+ */
+@RestController
+@RequestMapping("/api")
+public class IngestJobResource {
+
+    private final Logger log = LoggerFactory.getLogger(IngestJobResource.class);
+
+    private static final String ENTITY_NAME = "ingestJob";
+
+    private final IngestJobService ingestJobService;
+
+    public IngestJobResource(IngestJobService ingestJobService) {
+        this.ingestJobService = ingestJobService;
+    }
+
+    /**
+     * POST  /file-contents?async=true : Receive a file, and create a fileContent from it in the background.
+     *
+     * @param file the multipart file to store
+     * @return the ResponseEntity with status 202 (Accepted) and with body the queued ingestJob, to poll at its
+     * Location, or with status 503 (Service Unavailable) if too many uploads are waiting to be processed
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping(value = "/file-contents", params = "async=true")
+    @Timed
+    public ResponseEntity<IngestJob> createFileContentAsync(@RequestParam("file") MultipartFile file) throws URISyntaxException {
+        log.debug("REST request to save FileContent asynchronously : {}", file);
+        String fileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+        IngestJob result;
+        try {
+            result = ingestJobService.submit(fileName, file);
+        } catch (UncheckedIOException e) {
+            throw new InternalServerErrorException("Failed to upload file");
+        }
+        return ResponseEntity.accepted()
+            .location(new URI("/api/file-contents/jobs/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * GET  /file-contents/jobs/:id : get the "id" ingestJob, with its status.
+     *
+     * @param id the id of the ingestJob to retrieve
+     * @return the ResponseEntity with status 200 (OK) and with body the ingestJob, or with status 404 (Not Found)
+     */
+    @GetMapping("/file-contents/jobs/{id}")
+    @Timed
+    public ResponseEntity<IngestJob> getIngestJob(@PathVariable Long id) {
+        log.debug("REST request to get IngestJob : {}", id);
+        Optional<IngestJob> ingestJob = ingestJobService.findOne(id);
+        return ResponseUtil.wrapOrNotFound(ingestJob);
+    }
+}
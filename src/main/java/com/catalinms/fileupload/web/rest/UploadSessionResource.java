@@ -0,0 +1,171 @@
+package com.catalinms.fileupload.web.rest;
+
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.domain.UploadSession;
+import com.catalinms.fileupload.service.UploadSessionService;
+import com.catalinms.fileupload.web.rest.errors.BadRequestAlertException;
+import com.catalinms.fileupload.web.rest.util.HeaderUtil;
+import com.codahale.metrics.annotation.Timed;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for uploading a FileContent in several chunks, through an UploadSession.
+ * <p>
+ * A session is created with the name, content type and size of the file. Its chunks are then sent in order,
+ * each one at the committed size of the session; after a failure, the client reads the committed size back
+ * and resumes from it. Once all the bytes are committed, the session is completed into a FileContent.
+ * <p>
+ * A session created with a chunk size takes indexed chunks instead, which can be sent in any order and over
+ * several connections at once; the client reads the list of received chunks back to resend the missing ones.
+ */
+@RestController
+@RequestMapping("/api")
+public class UploadSessionResource {
+
+    private final Logger log = LoggerFactory.getLogger(UploadSessionResource.class);
+
+    private static final String ENTITY_NAME = "uploadSession";
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadSessionResource(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    /**
+     * POST  /upload-sessions : Create a new uploadSession.
+     *
+     * @param uploadSession the name, content type and size of the file to upload
+     * @return the ResponseEntity with status 201 (Created) and with body the new uploadSession, or with status 400 (Bad Request) if the uploadSession has already an ID
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping("/upload-sessions")
+    @Timed
+    public ResponseEntity<UploadSession> createUploadSession(@Valid @RequestBody UploadSession uploadSession) throws URISyntaxException {
+        log.debug("REST request to save UploadSession : {}", uploadSession);
+        if (uploadSession.getId() != null) {
+            throw new BadRequestAlertException("A new uploadSession cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        UploadSession result = uploadSessionService.create(uploadSession);
+        return ResponseEntity.created(new URI("/api/upload-sessions/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * GET  /upload-sessions/:id : get the "id" uploadSession, with its committed size.
+     *
+     * @param id the id of the uploadSession to retrieve
+     * @return the ResponseEntity with status 200 (OK) and with body the uploadSession, or with status 404 (Not Found)
+     */
+    @GetMapping("/upload-sessions/{id}")
+    @Timed
+    public ResponseEntity<UploadSession> getUploadSession(@PathVariable Long id) {
+        log.debug("REST request to get UploadSession : {}", id);
+        Optional<UploadSession> uploadSession = uploadSessionService.findOne(id);
+        return ResponseUtil.wrapOrNotFound(uploadSession);
+    }
+
+    /**
+     * PUT  /upload-sessions/:id?offset=:offset : Append the raw bytes of the request body to the "id" uploadSession.
+     *
+     * @param id the id of the uploadSession
+     * @param offset the offset of the chunk in the file, which must be the committed size of the uploadSession
+     * @param request the request, whose body is the chunk
+     * @return the ResponseEntity with status 200 (OK) and with body the updated uploadSession,
+     * or with status 400 (Bad Request) if the chunk goes past the end of the file,
+     * or with status 404 (Not Found),
+     * or with status 409 (Conflict) and the expected offset if the chunk does not start at the committed size
+     * @throws IOException if the request body could not be read
+     */
+    @PutMapping("/upload-sessions/{id}")
+    @Timed
+    public ResponseEntity<UploadSession> appendUploadSessionChunk(@PathVariable Long id, @RequestParam("offset") long offset,
+                                                                  HttpServletRequest request) throws IOException {
+        log.debug("REST request to append to UploadSession {} at offset {}", id, offset);
+        Optional<UploadSession> uploadSession = uploadSessionService.append(id, offset, request.getInputStream());
+        return ResponseUtil.wrapOrNotFound(uploadSession);
+    }
+
+    /**
+     * PUT  /upload-sessions/:id/chunks/:index : Write the raw bytes of the request body as the "index" chunk of
+     * the "id" uploadSession, which must have a chunk size.
+     *
+     * @param id the id of the uploadSession
+     * @param index the index of the chunk in the file
+     * @param request the request, whose body is the chunk
+     * @return the ResponseEntity with status 200 (OK) and with body the updated uploadSession,
+     * or with status 400 (Bad Request) if the chunk is out of the file or does not have the chunk size,
+     * or with status 404 (Not Found)
+     * @throws IOException if the request body could not be read
+     */
+    @PutMapping("/upload-sessions/{id}/chunks/{index}")
+    @Timed
+    public ResponseEntity<UploadSession> writeUploadSessionChunk(@PathVariable Long id, @PathVariable int index,
+                                                                 HttpServletRequest request) throws IOException {
+        log.debug("REST request to write chunk {} of UploadSession {}", index, id);
+        Optional<UploadSession> uploadSession = uploadSessionService.writeChunk(id, index, request.getInputStream());
+        return ResponseUtil.wrapOrNotFound(uploadSession);
+    }
+
+    /**
+     * GET  /upload-sessions/:id/chunks : get the indexes of the chunks received by the "id" uploadSession.
+     *
+     * @param id the id of the uploadSession
+     * @return the ResponseEntity with status 200 (OK) and with body the ordered indexes, or with status 404 (Not Found)
+     */
+    @GetMapping("/upload-sessions/{id}/chunks")
+    @Timed
+    public ResponseEntity<List<Integer>> getUploadSessionChunks(@PathVariable Long id) {
+        log.debug("REST request to get the chunks of UploadSession : {}", id);
+        return ResponseUtil.wrapOrNotFound(uploadSessionService.findChunkIndexes(id));
+    }
+
+    /**
+     * POST  /upload-sessions/:id/complete : Complete the "id" uploadSession into a new fileContent.
+     *
+     * @param id the id of the uploadSession to complete
+     * @return the ResponseEntity with status 201 (Created) and with body the new fileContent,
+     * or with status 400 (Bad Request) if some bytes are missing,
+     * or with status 404 (Not Found)
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping("/upload-sessions/{id}/complete")
+    @Timed
+    public ResponseEntity<FileContent> completeUploadSession(@PathVariable Long id) throws URISyntaxException {
+        log.debug("REST request to complete UploadSession : {}", id);
+        Optional<FileContent> result = uploadSessionService.complete(id);
+        if (!result.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.created(new URI("/api/file-contents/" + result.get().getId()))
+            .headers(HeaderUtil.createEntityCreationAlert("fileContent", result.get().getId().toString()))
+            .body(result.get());
+    }
+
+    /**
+     * DELETE  /upload-sessions/:id : abort the "id" uploadSession.
+     *
+     * @param id the id of the uploadSession to delete
+     * @return the ResponseEntity with status 200 (OK)
+     */
+    @DeleteMapping("/upload-sessions/{id}")
+    @Timed
+    public ResponseEntity<Void> deleteUploadSession(@PathVariable Long id) {
+        log.debug("REST request to delete UploadSession : {}", id);
+        uploadSessionService.delete(id);
+        return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
+    }
+}
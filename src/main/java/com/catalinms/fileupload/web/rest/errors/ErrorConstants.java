@@ -15,6 +15,9 @@ public final class ErrorConstants {
     public static final URI EMAIL_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/email-already-used");
     public static final URI LOGIN_ALREADY_USED_TYPE = URI.create(PROBLEM_BASE_URL + "/login-already-used");
     public static final URI EMAIL_NOT_FOUND_TYPE = URI.create(PROBLEM_BASE_URL + "/email-not-found");
+    public static final URI UPLOAD_OFFSET_MISMATCH_TYPE = URI.create(PROBLEM_BASE_URL + "/upload-offset-mismatch");
+    public static final URI INGEST_QUEUE_FULL_TYPE = URI.create(PROBLEM_BASE_URL + "/ingest-queue-full");
+    public static final URI INVALID_CSV_TYPE = URI.create(PROBLEM_BASE_URL + "/invalid-csv");
 
     private ErrorConstants() {
     }
@@ -0,0 +1,17 @@
+package com.catalinms.fileupload.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Thrown when an asynchronous upload is refused because too many are already waiting, with a Service Unavailable
+ * code: the client should retry later, or upload synchronously.
+ */
+public class IngestQueueFullException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public IngestQueueFullException() {
+        super(ErrorConstants.INGEST_QUEUE_FULL_TYPE, "Too many uploads are waiting to be processed", Status.SERVICE_UNAVAILABLE);
+    }
+}
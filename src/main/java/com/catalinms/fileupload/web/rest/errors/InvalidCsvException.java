@@ -0,0 +1,30 @@
+package com.catalinms.fileupload.web.rest.errors;
+
+import com.catalinms.fileupload.service.util.CsvFormatException;
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thrown when an uploaded CSV file is not valid, with a Bad Request code. The position of the first error is
+ * given in the "line" and "column" parameters.
+ */
+public class InvalidCsvException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCsvException(CsvFormatException e) {
+        super(ErrorConstants.INVALID_CSV_TYPE, "Invalid CSV file", Status.BAD_REQUEST, e.getMessage(), null, null,
+            getParameters(e));
+    }
+
+    private static Map<String, Object> getParameters(CsvFormatException e) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("message", "error.invalidcsv");
+        parameters.put("line", e.getLine());
+        parameters.put("column", e.getColumn());
+        return parameters;
+    }
+}
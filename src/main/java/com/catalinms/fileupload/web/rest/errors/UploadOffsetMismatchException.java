@@ -0,0 +1,35 @@
+package com.catalinms.fileupload.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thrown when a chunk is not sent at the offset the upload session expects, with a Conflict code.
+ * The expected offset is given in the "offset" parameter, so the client can resume from it.
+ */
+public class UploadOffsetMismatchException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long expectedOffset;
+
+    public UploadOffsetMismatchException(long expectedOffset) {
+        super(ErrorConstants.UPLOAD_OFFSET_MISMATCH_TYPE, "Chunk does not start at the committed offset", Status.CONFLICT,
+            null, null, null, getParameters(expectedOffset));
+        this.expectedOffset = expectedOffset;
+    }
+
+    public long getExpectedOffset() {
+        return expectedOffset;
+    }
+
+    private static Map<String, Object> getParameters(long expectedOffset) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("message", "error.uploadoffsetmismatch");
+        parameters.put("offset", expectedOffset);
+        return parameters;
+    }
+}
@@ -0,0 +1,295 @@
+package com.catalinms.fileupload.web.rest.util;
+
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+
+import io.undertow.servlet.spec.ServletOutputStreamImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Utility class for sending the raw content of stored files.
+ * <p>
+ * The content is validated with its strong {@link ETagUtil#getContentETag ETag}: a matching If-None-Match is answered
+ * with 304 (Not Modified) before the blob is opened, and a stale If-Range falls back to the full content.
+ * <p>
+ * Single and multiple byte ranges are supported, following
+ * <a href="https://tools.ietf.org/html/rfc7233">RFC 7233 (Range Requests)</a>. When the blob is a local file, its
+ * bytes are sent with {@link FileChannel#transferTo}, or straight to the Undertow response channel, so they are
+ * never copied to the heap; the response wrappers of the filters, such as the security headers one, are committed
+ * then bypassed for that. Otherwise small blobs are served from the content cache of the {@link BlobService}.
+ * <p>
+ * A blob stored compressed is sent as it is stored, with its Content-Encoding, when the client accepts that coding
+ * and asks for the whole content, so it is neither decompressed here nor compressed again by the server.
+ */
+public final class DownloadUtil {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadUtil.class);
+
+    private static final int MAX_RANGES = 20;
+
+    private static final String CRLF = "\r\n";
+
+    private DownloadUtil() {
+    }
+
+    /**
+     * Write the content of a file, or the byte ranges requested by the Range header, to the response. Nothing is
+     * written if the client already has the content.
+     *
+     * @param file the summary of the file, with the key of its blob
+     * @param blobService the service reading the blob
+     * @param request the current request
+     * @param response the current response
+     * @throws IOException if the blob could not be read, or the response could not be written
+     */
+    public static void writeContent(FileSummaryDTO file, BlobService blobService, HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+
+        String contentEncoding = blobService.getCodec(file.getBlobKey()).getContentEncoding();
+        boolean sendEncoded = false;
+        if (contentEncoding != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            sendEncoded = request.getHeader(HttpHeaders.RANGE) == null && isAccepted(request, contentEncoding);
+        }
+        String eTag = sendEncoded
+            ? ETagUtil.getEncodedContentETag(file.getContentHash(), contentEncoding)
+            : ETagUtil.getContentETag(file.getContentHash());
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+
+        long length = file.getContentSize();
+        MediaType mediaType = getMediaType(file);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+            .filename(file.getName(), StandardCharsets.UTF_8)
+            .build()
+            .toString());
+
+        if (sendEncoded) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            transferEncoded(file, blobService, response);
+            return;
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        List<HttpRange> ranges;
+        try {
+            ranges = ifRange == null || ifRange.equals(eTag)
+                ? HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE))
+                : Collections.emptyList();
+        } catch (IllegalArgumentException e) {
+            sendRangeNotSatisfiable(response, length);
+            return;
+        }
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(length);
+            transfer(file, blobService, 0, length, response, response.getOutputStream());
+            return;
+        }
+        if (ranges.size() > MAX_RANGES || !ranges.stream().allMatch(range -> isSatisfiable(range, length))) {
+            sendRangeNotSatisfiable(response, length);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+            response.setContentLengthLong(end - start + 1);
+            transfer(file, blobService, start, end - start + 1, response, response.getOutputStream());
+            return;
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        ServletOutputStream out = response.getOutputStream();
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            print(out, CRLF + "--" + boundary + CRLF);
+            print(out, HttpHeaders.CONTENT_TYPE + ": " + mediaType + CRLF);
+            print(out, HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, length) + CRLF + CRLF);
+            transfer(file, blobService, start, end - start + 1, response, out);
+        }
+        print(out, CRLF + "--" + boundary + "--" + CRLF);
+    }
+
+    public static MediaType getMediaType(FileSummaryDTO file) {
+        if (file.getContentContentType() == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(file.getContentContentType());
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private static void transfer(FileSummaryDTO file, BlobService blobService, long start, long count,
+                                 HttpServletResponse response, OutputStream out) throws IOException {
+
+        Optional<Path> localPath = blobService.getLocalPath(file.getBlobKey());
+        if (localPath.isPresent()) {
+            try (FileChannel channel = FileChannel.open(localPath.get(), StandardOpenOption.READ)) {
+                transfer(channel, start, count, response, out);
+            }
+        } else if (file.getContentSize() <= BlobService.MAX_CACHED_BLOB_SIZE) {
+            // small blobs of remote stores are served from the content cache
+            out.write(blobService.read(file.getBlobKey()), (int) start, (int) count);
+        } else {
+            try (InputStream content = blobService.open(file.getBlobKey())) {
+                StreamUtils.copyRange(content, out, start, start + count - 1);
+            }
+        }
+    }
+
+    private static void transferEncoded(FileSummaryDTO file, BlobService blobService, HttpServletResponse response)
+        throws IOException {
+
+        Optional<Path> localPath = blobService.getEncodedLocalPath(file.getBlobKey());
+        if (localPath.isPresent()) {
+            try (FileChannel channel = FileChannel.open(localPath.get(), StandardOpenOption.READ)) {
+                response.setContentLengthLong(channel.size());
+                transfer(channel, 0, channel.size(), response, response.getOutputStream());
+            }
+        } else {
+            // the encoded size is not recorded, so the response is chunked
+            try (InputStream content = blobService.openEncoded(file.getBlobKey())) {
+                StreamUtils.copy(content, response.getOutputStream());
+            }
+        }
+    }
+
+    /**
+     * Check whether the Accept-Encoding header of the request accepts a content coding, with a non-zero quality.
+     */
+    private static boolean isAccepted(HttpServletRequest request, String contentEncoding) {
+        Boolean accepted = null;
+        Boolean wildcardAccepted = null;
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING))) {
+            for (String coding : header.split(",")) {
+                String[] parameters = coding.split(";");
+                String name = parameters[0].trim();
+                boolean nonZero = true;
+                for (int i = 1; i < parameters.length; i++) {
+                    String parameter = parameters[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        nonZero = parseQuality(parameter.substring(2)) > 0;
+                    }
+                }
+                if (name.equalsIgnoreCase(contentEncoding) || name.equalsIgnoreCase("x-" + contentEncoding)) {
+                    accepted = nonZero;
+                } else if (name.equals("*")) {
+                    wildcardAccepted = nonZero;
+                }
+            }
+        }
+        if (accepted != null) {
+            return accepted;
+        }
+        return wildcardAccepted != null && wildcardAccepted;
+    }
+
+    private static double parseQuality(String quality) {
+        try {
+            return Double.parseDouble(quality.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void transfer(FileChannel channel, long start, long count, HttpServletResponse response,
+                                 OutputStream out) throws IOException {
+        Optional<ServletOutputStreamImpl> undertowOut = start + count == channel.size()
+            ? getUndertowOutputStream(response) : Optional.empty();
+        if (undertowOut.isPresent()) {
+            // the wrappers write their headers once the response is committed, which they only see through their stream
+            out.flush();
+            // Undertow sends the rest of the channel, from its position, with a zero-copy transfer
+            channel.position(start);
+            undertowOut.get().transferFrom(channel);
+            log.debug("Sent {} bytes with a zero-copy transfer", count);
+            return;
+        }
+        // the target channel is not closed, as it would close the response
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                throw new EOFException("Blob is shorter than its recorded size");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    /**
+     * Get the output stream of the Undertow response under the wrappers of a response.
+     */
+    private static Optional<ServletOutputStreamImpl> getUndertowOutputStream(ServletResponse response) throws IOException {
+        ServletResponse unwrapped = response;
+        while (unwrapped instanceof ServletResponseWrapper) {
+            unwrapped = ((ServletResponseWrapper) unwrapped).getResponse();
+        }
+        ServletOutputStream out = unwrapped.getOutputStream();
+        return out instanceof ServletOutputStreamImpl ? Optional.of((ServletOutputStreamImpl) out) : Optional.empty();
+    }
+
+    private static boolean isSatisfiable(HttpRange range, long length) {
+        try {
+            return range.getRangeStart(length) < length && range.getRangeStart(length) <= range.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void sendRangeNotSatisfiable(HttpServletResponse response, long length) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+    }
+
+    private static String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+    private static void print(OutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,54 @@
+package com.catalinms.fileupload.web.rest.util;
+
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utility class for the entity tags of stored files.
+ * <p>
+ * The content of a file gets a strong ETag, which is the SHA-256 hash computed when it was uploaded. Its JSON
+ * representation gets a weak ETag derived from the fields it is built from, so both can be validated from the
+ * file summary alone, without reading the blob.
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {
+    }
+
+    /**
+     * Get the strong ETag of the raw content of a file.
+     *
+     * @param contentHash the SHA-256 hash of the content, in hex
+     * @return the quoted ETag
+     */
+    public static String getContentETag(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
+    /**
+     * Get the strong ETag of the raw content of a file, sent with a content coding. It differs from the ETag of
+     * the content itself, as the encoded bytes are another representation.
+     *
+     * @param contentHash the SHA-256 hash of the content, in hex
+     * @param contentEncoding the content coding, like gzip
+     * @return the quoted ETag
+     */
+    public static String getEncodedContentETag(String contentHash, String contentEncoding) {
+        return "\"" + contentHash + "-" + contentEncoding + "\"";
+    }
+
+    /**
+     * Get the weak ETag of the JSON representation of a file, with its content.
+     *
+     * @param file the summary of the file
+     * @return the weak ETag
+     */
+    public static String getEntityETag(FileSummaryDTO file) {
+        String validator = file.getId() + "/" + file.getName() + "/" + file.getContentContentType() + "/" +
+            file.getContentHash();
+        return "W/\"" + DigestUtils.md5DigestAsHex(validator.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,50 @@
+package com.catalinms.fileupload.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Utility class for streaming large JSON arrays.
+ * <p>
+ * The elements are written to the response one at a time, as a database cursor produces them, so the whole
+ * array is never held in memory and the first elements are sent before the last ones are read.
+ */
+public final class JsonStreamUtil {
+
+    private JsonStreamUtil() {
+    }
+
+    /**
+     * Write a JSON array to the response, with the elements given by the producer.
+     *
+     * @param objectMapper the mapper serializing the elements
+     * @param response the current response
+     * @param producer the function passing each element of the array, in order, to the consumer it is given
+     * @param <T> the type of the elements
+     * @throws IOException if the response could not be written
+     */
+    public static <T> void writeArray(ObjectMapper objectMapper, HttpServletResponse response,
+                                      Consumer<Consumer<T>> producer) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            producer.accept(element -> {
+                try {
+                    generator.writeObject(element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.catalinms.fileupload.web.rest.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.List;
+import java.util.function.Function;
+
 /**
  * Utility class for handling pagination.
  *
  * <p>
  * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>,
  * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ * <p>
+ * Large tables are paginated with a cursor instead of a page number: the next page is requested with the
+ * key of the last element of the current one, so fetching a page does not depend on how far it is.
  */
 public final class PaginationUtil {
 
@@ -39,6 +46,37 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the Link header of a page fetched with a cursor. There is no "last" link and no total count,
+     * as computing them would require scanning the whole table.
+     *
+     * @param slice the current page
+     * @param cursor the function returning the cursor of an element, to fetch the elements after it
+     * @param baseUrl the url of the paginated resource
+     * @return the pagination headers
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(Slice<T> slice, Function<T, ?> cursor, String baseUrl) {
+
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            Object nextCursor = cursor.apply(content.get(content.size() - 1));
+            link = "<" + generateKeysetUri(baseUrl, nextCursor, slice.getSize()) + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, null, slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    private static String generateKeysetUri(String baseUrl, Object cursor, int size) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(baseUrl);
+        if (cursor != null) {
+            builder.queryParam("after", cursor);
+        }
+        return builder.queryParam("size", size).toUriString();
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
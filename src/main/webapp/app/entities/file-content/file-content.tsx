@@ -50,13 +50,10 @@ export class FileContent extends React.Component<IFileContentProps> {
                   </td>
                   <td>{fileContent.name}</td>
                   <td>
-                    {fileContent.content ? (
-                      <div>
-                        <a onClick={openFile(fileContent.contentContentType, fileContent.content)}>Open &nbsp;</a>
-                        <span>
-                          {fileContent.contentContentType}, {byteSize(fileContent.content)}
-                        </span>
-                      </div>
+                    {fileContent.contentHash ? (
+                      <span>
+                        {fileContent.contentContentType}, {fileContent.contentSize} bytes
+                      </span>
                     ) : null}
                   </td>
                   <td className="text-right">
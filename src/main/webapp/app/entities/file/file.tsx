@@ -50,13 +50,10 @@ export class File extends React.Component<IFileProps> {
                   </td>
                   <td>{file.name}</td>
                   <td>
-                    {file.content ? (
-                      <div>
-                        <a onClick={openFile(file.contentContentType, file.content)}>Open &nbsp;</a>
-                        <span>
-                          {file.contentContentType}, {byteSize(file.content)}
-                        </span>
-                      </div>
+                    {file.contentHash ? (
+                      <span>
+                        {file.contentContentType}, {file.contentSize} bytes
+                      </span>
                     ) : null}
                   </td>
                   <td className="text-right">
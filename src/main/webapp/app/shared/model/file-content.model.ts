@@ -3,6 +3,8 @@ export interface IFileContent {
   name?: string;
   contentContentType?: string;
   content?: any;
+  contentSize?: number;
+  contentHash?: string;
 }
 
 export const defaultValue: Readonly<IFileContent> = {};
@@ -3,6 +3,8 @@ export interface IFile {
   name?: string;
   contentContentType?: string;
   content?: any;
+  contentSize?: number;
+  contentHash?: string;
 }
 
 export const defaultValue: Readonly<IFile> = {};
@@ -0,0 +1,112 @@
+package com.catalinms.fileupload.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test class for the VirtualThreadTaskScheduler, on whichever JVM runs the tests. The scheduling of repeating
+ * tasks is also tested with a platform thread per run, so that it is covered on JVMs without virtual threads.
+ *
+ * @see VirtualThreadTaskScheduler
+ */
+public class VirtualThreadTaskSchedulerUnitTest {
+
+    private static final int TASK_COUNT = 4;
+
+    private static final long PERIOD_MILLIS = 10;
+
+    private static final long RUN_MILLIS = 50;
+
+    @Test
+    public void runsScheduledTasksAtOnceOnVirtualThreads() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThatThrownBy(() -> new VirtualThreadTaskScheduler("test-"))
+                .isInstanceOf(IllegalStateException.class);
+            return;
+        }
+        VirtualThreadTaskScheduler scheduler = new VirtualThreadTaskScheduler("test-");
+        try {
+            // Each task waits for all the others, which only completes if they all run at the same time
+            CountDownLatch started = new CountDownLatch(TASK_COUNT);
+            CountDownLatch completed = new CountDownLatch(TASK_COUNT);
+            Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+            for (int i = 0; i < TASK_COUNT; i++) {
+                scheduler.schedule(() -> {
+                    threads.add(Thread.currentThread());
+                    started.countDown();
+                    try {
+                        if (started.await(10, TimeUnit.SECONDS)) {
+                            completed.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, new Date());
+            }
+
+            assertThat(completed.await(10, TimeUnit.SECONDS)).isTrue();
+            for (Thread thread : threads) {
+                assertThat(thread.getName()).startsWith("test-");
+                assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+            }
+        } finally {
+            scheduler.destroy();
+        }
+    }
+
+    @Test
+    public void runsFixedRateTaskWithoutOverlap() throws Exception {
+        assertRunsWithoutOverlap(true);
+    }
+
+    @Test
+    public void runsFixedDelayTaskWithoutOverlap() throws Exception {
+        assertRunsWithoutOverlap(false);
+    }
+
+    /**
+     * Schedule a task whose runs outlast its period, and check that each run starts after the previous one ended.
+     */
+    private void assertRunsWithoutOverlap(boolean fixedRate) throws Exception {
+        VirtualThreadTaskScheduler scheduler = new VirtualThreadTaskScheduler("test-", Executors.newCachedThreadPool());
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            CountDownLatch runs = new CountDownLatch(TASK_COUNT);
+            Runnable task = () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(RUN_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    runs.countDown();
+                }
+            };
+            ScheduledFuture<?> future = fixedRate
+                ? scheduler.scheduleAtFixedRate(task, PERIOD_MILLIS)
+                : scheduler.scheduleWithFixedDelay(task, PERIOD_MILLIS);
+
+            assertThat(runs.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(future.cancel(false)).isTrue();
+            assertThat(future.isCancelled()).isTrue();
+            assertThat(overlaps.get()).isZero();
+        } finally {
+            scheduler.destroy();
+        }
+    }
+}
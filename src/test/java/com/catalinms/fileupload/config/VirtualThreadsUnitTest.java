@@ -0,0 +1,36 @@
+package com.catalinms.fileupload.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test class for the VirtualThreads factories, on whichever JVM runs the tests.
+ *
+ * @see VirtualThreads
+ */
+public class VirtualThreadsUnitTest {
+
+    @Test
+    public void runsTasksOnNamedVirtualThreads() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThatThrownBy(() -> VirtualThreads.newThreadPerTaskExecutor("test-"))
+                .isInstanceOf(IllegalStateException.class);
+            return;
+        }
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            Future<Thread> thread = executor.submit(Thread::currentThread);
+
+            assertThat(thread.get(10, TimeUnit.SECONDS).getName()).isEqualTo("test-0");
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread.get())).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.catalinms.fileupload.config;
 
+import com.catalinms.fileupload.web.filter.ImmutableCachingHttpHeadersFilter;
+
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.servlet.InstrumentedFilter;
 import com.codahale.metrics.servlets.MetricsServlet;
@@ -77,6 +79,7 @@ public class WebConfigurerTest {
         verify(servletContext).addFilter(eq("webappMetricsFilter"), any(InstrumentedFilter.class));
         verify(servletContext).addServlet(eq("metricsServlet"), any(MetricsServlet.class));
         verify(servletContext).addFilter(eq("cachingHttpHeadersFilter"), any(CachingHttpHeadersFilter.class));
+        verify(servletContext).addFilter(eq("immutableCachingHttpHeadersFilter"), any(ImmutableCachingHttpHeadersFilter.class));
     }
 
     @Test
@@ -89,6 +92,7 @@ public class WebConfigurerTest {
         verify(servletContext).addFilter(eq("webappMetricsFilter"), any(InstrumentedFilter.class));
         verify(servletContext).addServlet(eq("metricsServlet"), any(MetricsServlet.class));
         verify(servletContext, never()).addFilter(eq("cachingHttpHeadersFilter"), any(CachingHttpHeadersFilter.class));
+        verify(servletContext).addFilter(eq("immutableCachingHttpHeadersFilter"), any(ImmutableCachingHttpHeadersFilter.class));
     }
 
     @Test
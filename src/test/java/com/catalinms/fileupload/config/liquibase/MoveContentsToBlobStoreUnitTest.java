@@ -0,0 +1,90 @@
+package com.catalinms.fileupload.config.liquibase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.storage.FileSystemBlobStore;
+
+import liquibase.database.core.H2Database;
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for the MoveContentsToBlobStore change, on a table still holding its contents.
+ *
+ * @see MoveContentsToBlobStore
+ */
+public class MoveContentsToBlobStoreUnitTest {
+
+    private static final byte[] CONTENT = "content".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private H2Database database;
+
+    @Before
+    public void setup() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table file_content (id bigint primary key, content blob, "
+                + "content_content_type varchar(255), blob_key varchar(255), content_size bigint, content_hash varchar(64))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into file_content (id, content, content_content_type) values (?, ?, ?)")) {
+            insert.setLong(1, 1L);
+            insert.setBytes(2, CONTENT);
+            insert.setString(3, "text/plain");
+            insert.executeUpdate();
+            insert.setLong(1, 2L);
+            insert.setBytes(2, null);
+            insert.setString(3, "text/plain");
+            insert.executeUpdate();
+        }
+        database = new H2Database();
+        database.setConnection(new JdbcConnection(connection));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table file_content");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void movesContentsToBlobStore() throws Exception {
+        MoveContentsToBlobStore change = new MoveContentsToBlobStore();
+        change.setTableName("file_content");
+        change.setStorageType("FILESYSTEM");
+        change.setStorageLocation(folder.getRoot().getPath());
+
+        change.execute(database);
+
+        BlobService blobService = new BlobService(new FileSystemBlobStore(folder.getRoot().toPath()));
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select blob_key, content_size, content_hash from file_content order by id")) {
+            rows.next();
+            assertThat(blobService.read(rows.getString("blob_key"))).isEqualTo(CONTENT);
+            assertThat(rows.getLong("content_size")).isEqualTo(CONTENT.length);
+            assertThat(rows.getString("content_hash")).hasSize(64);
+            rows.next();
+            assertThat(rows.getString("blob_key")).isNull();
+        }
+        assertThat(change.getConfirmationMessage()).isEqualTo("Moved 1 contents of file_content to the blob store");
+    }
+}
@@ -4,6 +4,8 @@ import com.catalinms.fileupload.FileuploadApp;
 import com.catalinms.fileupload.config.Constants;
 import com.catalinms.fileupload.config.audit.AuditEventConverter;
 import com.catalinms.fileupload.domain.PersistentAuditEvent;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,6 +18,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.servlet.http.HttpSession;
 import java.time.Instant;
 import java.util.HashMap;
@@ -41,6 +44,9 @@ public class CustomAuditEventRepositoryIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private EntityManager em;
+
     private CustomAuditEventRepository customAuditEventRepository;
 
     private PersistentAuditEvent testUserEvent;
@@ -90,6 +96,22 @@ public class CustomAuditEventRepositoryIntTest {
         assertThat(persistentAuditEvent.getAuditEventDate()).isEqualTo(event.getTimestamp());
     }
 
+    @Test
+    public void addAuditEventsInBatches() {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            customAuditEventRepository.add(new AuditEvent("test-user", "test-type", new HashMap<>()));
+        }
+        em.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(10);
+        // the ids come from a pool and the rows are sent in JDBC batches, not one statement per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+        assertThat(persistenceAuditEventRepository.findAll()).hasSize(10);
+    }
+
     @Test
     public void addAuditEventTruncateLargeData() {
         Map<String, Object> data = new HashMap<>();
@@ -0,0 +1,105 @@
+package com.catalinms.fileupload.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.catalinms.fileupload.service.storage.BlobCodec;
+import com.catalinms.fileupload.service.storage.FileSystemBlobStore;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+import com.catalinms.fileupload.service.util.CsvRowIndexingInputStream;
+import com.catalinms.fileupload.service.util.RowIndex;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Tests the reading of blobs from an offset, with blobs kept on the local disk.
+ *
+ * @see BlobService
+ */
+public class BlobServiceUnitTest {
+
+    private static final byte[] COMPRESSIBLE_CONTENT = new String(new char[10000]).replace("\0", "0123456789\n")
+        .getBytes(StandardCharsets.US_ASCII);
+
+    private static final int OFFSET = COMPRESSIBLE_CONTENT.length - 11;
+
+    private static final int LAST_ROW = 9999;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The number of blobs read through their stream, from their start.
+     */
+    private final AtomicInteger streamedBlobs = new AtomicInteger();
+
+    private BlobService blobService;
+
+    @Before
+    public void setup() throws Exception {
+        blobService = new BlobService(new FileSystemBlobStore(folder.getRoot().toPath()) {
+            @Override
+            public InputStream get(String key) throws IOException {
+                streamedBlobs.incrementAndGet();
+                return super.get(key);
+            }
+        });
+    }
+
+    @Test
+    public void openUncompressedBlobAtOffset() throws Exception {
+        StoredBlob blob = blobService.store(new ByteArrayInputStream(COMPRESSIBLE_CONTENT), "application/zip");
+
+        assertThat(BlobCodec.fromKey(blob.getKey())).isEqualTo(BlobCodec.NONE);
+        try (InputStream content = blobService.open(blob.getKey(), OFFSET)) {
+            assertThat(StreamUtils.copyToByteArray(content))
+                .isEqualTo(Arrays.copyOfRange(COMPRESSIBLE_CONTENT, OFFSET, COMPRESSIBLE_CONTENT.length));
+        }
+        // The blob file is read from the offset, the bytes before it are never read
+        assertThat(streamedBlobs.get()).isZero();
+    }
+
+    @Test
+    public void openCompressedBlobAtOffset() throws Exception {
+        StoredBlob blob = blobService.store(new ByteArrayInputStream(COMPRESSIBLE_CONTENT), "text/csv");
+
+        assertThat(BlobCodec.fromKey(blob.getKey())).isEqualTo(BlobCodec.GZIP);
+        try (InputStream content = blobService.open(blob.getKey(), OFFSET)) {
+            assertThat(StreamUtils.copyToByteArray(content))
+                .isEqualTo(Arrays.copyOfRange(COMPRESSIBLE_CONTENT, OFFSET, COMPRESSIBLE_CONTENT.length));
+        }
+        // The blob is decoded from its start up to the offset
+        assertThat(streamedBlobs.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void openCompressedBlobAtSeekPoint() throws Exception {
+        CsvRowIndexingInputStream indexed = new CsvRowIndexingInputStream(
+            new ByteArrayInputStream(COMPRESSIBLE_CONTENT), 1000);
+        StoredBlob blob = blobService.store(indexed, "text/csv", indexed);
+        RowIndex rowIndex = indexed.getRowIndex();
+
+        assertThat(BlobCodec.fromKey(blob.getKey())).isEqualTo(BlobCodec.GZIP);
+        assertThat(rowIndex.getOffset(LAST_ROW)).isLessThan(OFFSET);
+        assertThat(rowIndex.getEncodedOffset(LAST_ROW)).isPresent();
+        try (InputStream content = blobService.openAtSeekPoint(blob.getKey(),
+            rowIndex.getEncodedOffset(LAST_ROW).getAsLong())) {
+            assertThat(StreamUtils.copyToByteArray(content)).isEqualTo(Arrays.copyOfRange(COMPRESSIBLE_CONTENT,
+                (int) rowIndex.getOffset(LAST_ROW), COMPRESSIBLE_CONTENT.length));
+        }
+        // The blob file is decoded from the seek point, the bytes before it are never read
+        assertThat(streamedBlobs.get()).isZero();
+        // The blob is still a single gzip member, decoded whole from its start
+        assertThat(blobService.read(blob.getKey())).isEqualTo(COMPRESSIBLE_CONTENT);
+    }
+}
@@ -0,0 +1,138 @@
+package com.catalinms.fileupload.service;
+
+import com.catalinms.fileupload.FileuploadApp;
+import com.catalinms.fileupload.domain.ContentBlob;
+import com.catalinms.fileupload.repository.ContentBlobRepository;
+import com.catalinms.fileupload.service.storage.BlobCodec;
+import com.catalinms.fileupload.service.storage.BlobStore;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the deduplication of the stored contents, which commits on its own.
+ *
+ * @see ContentBlobService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FileuploadApp.class)
+public class ContentBlobServiceIntTest {
+
+    @Autowired
+    private ContentBlobService contentBlobService;
+
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void storeSameContentConcurrently() throws Exception {
+        byte[] content = ("concurrent " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+
+        // Both contents are stored before either of them is deduplicated
+        CountDownLatch stored = new CountDownLatch(2);
+        Callable<StoredBlob> store = () -> contentBlobService.store(new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int read = super.read(b, off, len);
+                if (read == -1) {
+                    stored.countDown();
+                    try {
+                        stored.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return read;
+            }
+        }, "text/plain");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<StoredBlob> blobs = new ArrayList<>();
+        try {
+            for (Future<StoredBlob> result : executor.invokeAll(Arrays.asList(store, store))) {
+                blobs.add(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Both uploads share the copy of the first one
+        String key = blobs.get(0).getKey();
+        try {
+            assertThat(blobs.get(1).getKey()).isEqualTo(key);
+            ContentBlob contentBlob = contentBlobRepository.findOneByContentHash(blobs.get(0).getHash()).get();
+            assertThat(contentBlob.getBlobKey()).isEqualTo(key);
+            assertThat(contentBlob.getRefCount()).isEqualTo(2L);
+            assertThat(blobService.read(key)).isEqualTo(content);
+        } finally {
+            contentBlobService.release(key);
+            contentBlobService.release(key);
+        }
+        assertThat(contentBlobRepository.findOneByBlobKey(key))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isZero());
+        assertThat(blobStore.exists(BlobCodec.toStoreKey(key))).isFalse();
+    }
+
+    @Test
+    public void storeReleasedContentAgain() {
+        byte[] content = ("released " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        StoredBlob released = contentBlobService.store(new ByteArrayInputStream(content), "text/plain");
+        contentBlobService.release(released.getKey());
+
+        // The content keeps its row, and holds the new copy
+        StoredBlob blob = contentBlobService.store(new ByteArrayInputStream(content), "text/plain");
+        try {
+            assertThat(blob.getKey()).isNotEqualTo(released.getKey());
+            ContentBlob contentBlob = contentBlobRepository.findOneByContentHash(blob.getHash()).get();
+            assertThat(contentBlob.getBlobKey()).isEqualTo(blob.getKey());
+            assertThat(contentBlob.getRefCount()).isEqualTo(1L);
+            assertThat(blobService.read(blob.getKey())).isEqualTo(content);
+        } finally {
+            contentBlobService.release(blob.getKey());
+        }
+    }
+
+    @Test
+    public void keepNoReferenceOnRollback() {
+        byte[] content = ("rolled back " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+
+        StoredBlob blob = new TransactionTemplate(transactionManager).execute(status -> {
+            StoredBlob result = contentBlobService.store(new ByteArrayInputStream(content), "text/plain");
+            status.setRollbackOnly();
+            return result;
+        });
+
+        assertThat(contentBlobRepository.findOneByContentHash(blob.getHash()))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isZero());
+        assertThat(blobStore.exists(BlobCodec.toStoreKey(blob.getKey()))).isFalse();
+    }
+}
@@ -0,0 +1,84 @@
+package com.catalinms.fileupload.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import com.catalinms.fileupload.service.util.RowIndex;
+
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Test class for the BlobCodec enum.
+ *
+ * @see BlobCodec
+ */
+public class BlobCodecUnitTest {
+
+    private static final byte[] CONTENT = new String(new char[10000]).replace("\0", "compressible ")
+        .getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void gzipIsReadableByGzipInputStream() throws IOException {
+        byte[] encoded;
+        try (InputStream encoding = BlobCodec.GZIP.encode(new ByteArrayInputStream(CONTENT))) {
+            encoded = StreamUtils.copyToByteArray(encoding);
+        }
+
+        assertThat(encoded.length).isLessThan(CONTENT.length / 10);
+        try (InputStream decoding = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(StreamUtils.copyToByteArray(decoding)).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void gzipRoundTripsEmptyContent() throws IOException {
+        byte[] encoded;
+        try (InputStream encoding = BlobCodec.GZIP.encode(new ByteArrayInputStream(new byte[0]))) {
+            encoded = StreamUtils.copyToByteArray(encoding);
+        }
+
+        try (InputStream decoding = BlobCodec.GZIP.decode(new ByteArrayInputStream(encoded))) {
+            assertThat(StreamUtils.copyToByteArray(decoding)).isEmpty();
+        }
+    }
+
+    @Test
+    public void gzipIsDecodedFromSeekPoints() throws IOException {
+        long[] offsets = {0, 1, 13 * 5000, CONTENT.length};
+        RowIndex seekPoints = new RowIndex(1, offsets);
+        byte[] encoded;
+        try (InputStream encoding = BlobCodec.GZIP.encode(new ByteArrayInputStream(CONTENT), seekPoints)) {
+            encoded = StreamUtils.copyToByteArray(encoding);
+        }
+
+        assertThat(encoded.length).isLessThan(CONTENT.length / 10);
+        try (InputStream decoding = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(StreamUtils.copyToByteArray(decoding)).isEqualTo(CONTENT);
+        }
+        for (int row = 0; row < offsets.length; row++) {
+            int encodedOffset = (int) seekPoints.getEncodedOffset(row).getAsLong();
+            try (InputStream decoding = BlobCodec.GZIP.decodeFrom(
+                new ByteArrayInputStream(encoded, encodedOffset, encoded.length - encodedOffset))) {
+                assertThat(StreamUtils.copyToByteArray(decoding))
+                    .isEqualTo(Arrays.copyOfRange(CONTENT, (int) offsets[row], CONTENT.length));
+            }
+        }
+    }
+
+    @Test
+    public void codecIsRecordedInKey() {
+        String key = BlobCodec.GZIP.toKey("store-key");
+
+        assertThat(BlobCodec.fromKey(key)).isEqualTo(BlobCodec.GZIP);
+        assertThat(BlobCodec.toStoreKey(key)).isEqualTo("store-key");
+        assertThat(BlobCodec.fromKey("store-key")).isEqualTo(BlobCodec.NONE);
+        assertThat(BlobCodec.toStoreKey("store-key")).isEqualTo("store-key");
+    }
+}
@@ -0,0 +1,106 @@
+package com.catalinms.fileupload.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Test class for the CsvRowIndexingInputStream, and the reads of rows from its RowIndex.
+ *
+ * @see CsvRowIndexingInputStream
+ * @see RowIndex
+ */
+public class CsvRowIndexingInputStreamUnitTest {
+
+    private static final byte[] CSV = "\uFEFFid,name\n1,a\n2,\"b\nb\"\n3,c\n4,d\n5,e\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void indexesEveryIntervalRows() throws IOException {
+        RowIndex rowIndex = index(CSV, 2);
+
+        assertThat(rowIndex.getInterval()).isEqualTo(2);
+        // the first row starts after the byte order mark, and the quoted line feed does not end a row
+        assertThat(rowIndex.getOffset(0)).isEqualTo(3);
+        assertThat(rowIndex.getOffset(3)).isEqualTo(15);
+        assertThat(rowIndex.getIndexedRow(3)).isEqualTo(2);
+        assertThat(rowIndex.getIndexedRow(100)).isEqualTo(6);
+    }
+
+    @Test
+    public void roundTripsSerializedIndex() throws IOException {
+        RowIndex rowIndex = RowIndex.fromByteArray(index(CSV, 2).toByteArray());
+
+        assertThat(rowIndex.getInterval()).isEqualTo(2);
+        assertThat(rowIndex.getOffset(5)).isEqualTo(27);
+        assertThat(rowIndex.getEncodedOffset(5)).isEmpty();
+    }
+
+    @Test
+    public void recordsEncodedOffsetsOfIndexedRows() throws IOException {
+        try (CsvRowIndexingInputStream in = new CsvRowIndexingInputStream(new ByteArrayInputStream(CSV), 2)) {
+            StreamUtils.drain(in);
+            // the indexed rows are the seek points, each encoded once and in order
+            assertThat(in.next(0)).isEqualTo(3);
+            assertThat(in.next(4)).isEqualTo(15);
+            assertThat(in.next(CSV.length + 1)).isEqualTo(-1);
+            for (long offset = in.next(0), encodedOffset = 10; offset != -1; offset = in.next(offset + 1)) {
+                in.encodedAt(offset, encodedOffset++);
+            }
+
+            RowIndex rowIndex = RowIndex.fromByteArray(in.getRowIndex().toByteArray());
+            assertThat(rowIndex.getOffset(5)).isEqualTo(27);
+            assertThat(rowIndex.getEncodedOffset(0)).hasValue(10);
+            assertThat(rowIndex.getEncodedOffset(5)).hasValue(12);
+            assertThat(rowIndex.withoutEncodedOffsets().getEncodedOffset(5)).isEmpty();
+        }
+    }
+
+    @Test
+    public void readsRowsFromIndexedOffset() throws IOException {
+        RowIndex rowIndex = index(CSV, 2);
+
+        assertThat(readRows(rowIndex, 0, 1)).isEqualTo("id,name\n");
+        assertThat(readRows(rowIndex, 1, 3)).isEqualTo("1,a\n2,\"b\nb\"\n3,c\n");
+        assertThat(readRows(rowIndex, 3, 2)).isEqualTo("3,c\n4,d\n");
+        assertThat(readRows(rowIndex, 5, 10)).isEqualTo("5,e\n");
+        assertThat(readRows(rowIndex, 100, 1)).isEmpty();
+    }
+
+    @Test
+    public void readsNoRowsForEmptyCount() throws IOException {
+        RowIndex rowIndex = index(CSV, 2);
+
+        // the first row to read is not an indexed one, so rows are skipped before it
+        assertThat(readRows(rowIndex, 3, 0)).isEmpty();
+        assertThat(readRows(rowIndex, 1, -1)).isEmpty();
+    }
+
+    @Test
+    public void passesContentThrough() throws IOException {
+        try (InputStream in = new CsvRowIndexingInputStream(new ByteArrayInputStream(CSV), 1)) {
+            assertThat(StreamUtils.copyToByteArray(in)).isEqualTo(CSV);
+        }
+    }
+
+    private static RowIndex index(byte[] csv, int interval) throws IOException {
+        try (CsvRowIndexingInputStream in = new CsvRowIndexingInputStream(new ByteArrayInputStream(csv), interval)) {
+            StreamUtils.drain(in);
+            return in.getRowIndex();
+        }
+    }
+
+    private static String readRows(RowIndex rowIndex, long from, long count) throws IOException {
+        ByteArrayInputStream content = new ByteArrayInputStream(CSV);
+        content.skip(rowIndex.getOffset(from));
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        RowIndex.copyRows(content, from - rowIndex.getIndexedRow(from), count, rows);
+        return new String(rows.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
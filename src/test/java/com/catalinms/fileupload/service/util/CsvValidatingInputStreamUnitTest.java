@@ -0,0 +1,100 @@
+package com.catalinms.fileupload.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Test class for the CsvValidatingInputStream.
+ *
+ * @see CsvValidatingInputStream
+ */
+public class CsvValidatingInputStreamUnitTest {
+
+    @Test
+    public void passesValidCsvThrough() throws IOException {
+        byte[] csv = "\uFEFFid,name,note\r\n1,\"Doe, \"\"John\"\"\",\"two\r\nlines\"\n2,,\u00e9\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(read(csv, StandardCharsets.UTF_8)).isEqualTo(csv);
+    }
+
+    @Test
+    public void acceptsMissingFinalLineBreakAndEmptyContent() throws IOException {
+        read("a,b\n1,2".getBytes(StandardCharsets.US_ASCII), StandardCharsets.UTF_8);
+        read(new byte[0], StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void rejectsInconsistentFieldCount() {
+        assertError("a,b\n1,2\n3\n", 3, 2);
+    }
+
+    @Test
+    public void rejectsQuoteInUnquotedField() {
+        assertError("a,b\n1,x\"y\n", 2, 4);
+    }
+
+    @Test
+    public void rejectsCharactersAfterClosingQuote() {
+        assertError("a,b\n\"1\"x,2\n", 2, 4);
+    }
+
+    @Test
+    public void rejectsUnclosedQuotedField() {
+        assertError("a,b\n1,\"2\n3,4\n", 2, 3);
+    }
+
+    @Test
+    public void rejectsBareCarriageReturn() {
+        assertError("a,b\r1,2\n", 1, 4);
+    }
+
+    @Test
+    public void rejectsInvalidEncoding() {
+        byte[] csv = {'a', ',', 'b', '\n', '1', ',', (byte) 0xc3, '\n'};
+
+        CsvFormatException e = (CsvFormatException) catchThrowable(() -> read(csv, StandardCharsets.UTF_8));
+
+        assertThat(e.getLine()).isEqualTo(2);
+        assertThat(e.getColumn()).isEqualTo(3);
+    }
+
+    @Test
+    public void reportsPositionAcrossReadBoundaries() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            csv.append(i).append(",\"\u00e9\"\n");
+        }
+        csv.append("x\n");
+
+        CsvFormatException e = (CsvFormatException) catchThrowable(() ->
+            read(csv.toString().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+
+        assertThat(e.getLine()).isEqualTo(10001);
+        assertThat(e.getColumn()).isEqualTo(2);
+    }
+
+    private static void assertError(String csv, long line, long column) {
+        Throwable thrown = catchThrowable(() -> read(csv.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+
+        assertThat(thrown).isInstanceOf(CsvFormatException.class);
+        CsvFormatException e = (CsvFormatException) thrown;
+        assertThat(e.getLine()).isEqualTo(line);
+        assertThat(e.getColumn()).isEqualTo(column);
+    }
+
+    private static byte[] read(byte[] csv, Charset charset) throws IOException {
+        try (InputStream in = new CsvValidatingInputStream(new ByteArrayInputStream(csv), charset)) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.catalinms.fileupload.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for the SingleFlight utility class.
+ *
+ * @see SingleFlight
+ */
+public class SingleFlightUnitTest {
+
+    private SingleFlight<String, String> singleFlight;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        singleFlight = new SingleFlight<>();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> singleFlight.execute("key", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "value";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> second = executor.submit(() -> singleFlight.execute("key", () -> {
+            loads.incrementAndGet();
+            return "other value";
+        }));
+        // leaves time for the second call to join the flight
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void completedLoadIsNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("key", () -> "value" + loads.incrementAndGet());
+        String result = singleFlight.execute("key", () -> "value" + loads.incrementAndGet());
+
+        assertThat(result).isEqualTo("value2");
+    }
+
+    @Test
+    public void failedLoadIsRethrown() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("failed");
+
+        assertThat(singleFlight.execute("key", () -> "value")).isEqualTo("value");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.time.Instant;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -57,6 +58,9 @@ public class AuditResourceIntTest {
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private EntityManager em;
+
     private PersistentAuditEvent auditEvent;
 
     private MockMvc restAuditMockMvc;
@@ -65,8 +69,8 @@ public class AuditResourceIntTest {
     public void setup() {
         MockitoAnnotations.initMocks(this);
         AuditEventService auditEventService =
-            new AuditEventService(auditEventRepository, auditEventConverter);
-        AuditResource auditResource = new AuditResource(auditEventService);
+            new AuditEventService(auditEventRepository, auditEventConverter, em);
+        AuditResource auditResource = new AuditResource(auditEventService, jacksonMessageConverter.getObjectMapper());
         this.restAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setConversionService(formattingConversionService)
@@ -94,6 +98,20 @@ public class AuditResourceIntTest {
             .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)));
     }
 
+    @Test
+    public void streamAllAudits() throws Exception {
+        // Initialize the database
+        auditEvent.getData().put("remoteAddress", "127.0.0.1");
+        auditEventRepository.save(auditEvent);
+
+        // Stream all the audits
+        restAuditMockMvc.perform(get("/management/audits?stream=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)))
+            .andExpect(jsonPath("$.[0].data.remoteAddress").value("127.0.0.1"));
+    }
+
     @Test
     public void getAudit() throws Exception {
         // Initialize the database
@@ -0,0 +1,109 @@
+package com.catalinms.fileupload.web.rest;
+
+import com.catalinms.fileupload.FileuploadApp;
+
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.FileContentService;
+import com.catalinms.fileupload.service.FileService;
+import com.catalinms.fileupload.web.filter.ImmutableCachingHttpHeadersFilter;
+import com.catalinms.fileupload.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the BlobResource REST controller.
+ *
+ * @see BlobResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FileuploadApp.class)
+public class BlobResourceIntTest {
+
+    private static final byte[] DEFAULT_CONTENT = TestUtil.createByteArray(16, "0");
+    private static final String DEFAULT_CONTENT_CONTENT_TYPE = "image/jpg";
+
+    private static final String UNKNOWN_HASH = "0000000000000000000000000000000000000000000000000000000000000000";
+
+    @Autowired
+    private FileContentService fileContentService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restBlobMockMvc;
+
+    @Before
+    public void setup() {
+        final BlobResource blobResource = new BlobResource(fileContentService, fileService, blobService);
+        this.restBlobMockMvc = MockMvcBuilders.standaloneSetup(blobResource)
+            .setControllerAdvice(exceptionTranslator)
+            .addFilter(new ImmutableCachingHttpHeadersFilter(), "/api/blobs/*")
+            .build();
+    }
+
+    @Test
+    @Transactional
+    public void getBlob() throws Exception {
+        // Initialize the database
+        FileContent fileContent = fileContentService.create("AAAAAAAAAA", DEFAULT_CONTENT_CONTENT_TYPE,
+            new ByteArrayInputStream(DEFAULT_CONTENT));
+        em.flush();
+
+        // Get the content by its hash
+        restBlobMockMvc.perform(get("/api/blobs/{hash}", fileContent.getContentHash()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_CONTENT_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + fileContent.getContentHash() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+            .andExpect(content().bytes(DEFAULT_CONTENT));
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingBlob() throws Exception {
+        restBlobMockMvc.perform(get("/api/blobs/{hash}", UNKNOWN_HASH))
+            .andExpect(status().isNotFound())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+    }
+
+    @Test
+    @Transactional
+    public void getUnsatisfiableRangeOfBlob() throws Exception {
+        // Initialize the database
+        FileContent fileContent = fileContentService.create("AAAAAAAAAA", DEFAULT_CONTENT_CONTENT_TYPE,
+            new ByteArrayInputStream(DEFAULT_CONTENT));
+        em.flush();
+
+        // The error is not cached, unlike the content
+        restBlobMockMvc.perform(get("/api/blobs/{hash}", fileContent.getContentHash())
+            .header(HttpHeaders.RANGE, "bytes=" + DEFAULT_CONTENT.length + "-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+    }
+}
@@ -3,9 +3,16 @@ package com.catalinms.fileupload.web.rest;
 import com.catalinms.fileupload.FileuploadApp;
 
 import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.repository.ContentBlobRepository;
 import com.catalinms.fileupload.repository.FileContentRepository;
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.FileContentService;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
+import com.catalinms.fileupload.service.storage.BlobCodec;
+import com.catalinms.fileupload.service.storage.BlobStore;
 import com.catalinms.fileupload.web.rest.errors.ExceptionTranslator;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,8 +20,10 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -23,12 +32,17 @@ import org.springframework.util.Base64Utils;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 
 import static com.catalinms.fileupload.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -52,6 +66,18 @@ public class FileContentResourceIntTest {
     @Autowired
     private FileContentRepository fileContentRepository;
 
+    @Autowired
+    private FileContentService fileContentService;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -74,7 +100,8 @@ public class FileContentResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final FileContentResource fileContentResource = new FileContentResource(fileContentRepository);
+        final FileContentResource fileContentResource = new FileContentResource(fileContentService, blobService,
+            jacksonMessageConverter.getObjectMapper());
         this.restFileContentMockMvc = MockMvcBuilders.standaloneSetup(fileContentResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -102,24 +129,158 @@ public class FileContentResourceIntTest {
         fileContent = createEntity(em);
     }
 
+    /**
+     * Persist the test entity, with its content in the blob store.
+     */
+    private void persistFileContent() {
+        fileContent = fileContentService.create(fileContent.getName(), fileContent.getContentContentType(),
+            new ByteArrayInputStream(fileContent.getContent()));
+        em.flush();
+    }
+
     @Test
     @Transactional
     public void createFileContent() throws Exception {
         int databaseSizeBeforeCreate = fileContentRepository.findAll().size();
 
         // Create the FileContent
-        restFileContentMockMvc.perform(post("/api/file-contents")
-            .contentType(TestUtil.APPLICATION_JSON_UTF8)
-            .content(TestUtil.convertObjectToJsonBytes(fileContent)))
-            .andExpect(status().isCreated());
+        MockMultipartFile file = new MockMultipartFile("file", DEFAULT_NAME, DEFAULT_CONTENT_CONTENT_TYPE, DEFAULT_CONTENT);
+        restFileContentMockMvc.perform(multipart("/api/file-contents").file(file))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.content").doesNotExist());
 
         // Validate the FileContent in the database
         List<FileContent> fileContentList = fileContentRepository.findAll();
         assertThat(fileContentList).hasSize(databaseSizeBeforeCreate + 1);
         FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
         assertThat(testFileContent.getName()).isEqualTo(DEFAULT_NAME);
-        assertThat(testFileContent.getContent()).isEqualTo(DEFAULT_CONTENT);
         assertThat(testFileContent.getContentContentType()).isEqualTo(DEFAULT_CONTENT_CONTENT_TYPE);
+        assertThat(testFileContent.getContentSize()).isEqualTo((long) DEFAULT_CONTENT.length);
+        assertThat(testFileContent.getContentHash()).hasSize(64);
+        assertThat(blobService.read(testFileContent.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void createValidCsvFileContent() throws Exception {
+        byte[] csv = "id,name\r\n1,\"Doe, \"\"John\"\"\"\r\n2,\"multi\r\nline\"\r\n".getBytes(StandardCharsets.UTF_8);
+
+        MockMultipartFile file = new MockMultipartFile("file", "people.csv", "text/csv", csv);
+        restFileContentMockMvc.perform(multipart("/api/file-contents").file(file))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value("people.csv"));
+    }
+
+    @Test
+    @Transactional
+    public void createInvalidCsvFileContent() throws Exception {
+        int databaseSizeBeforeCreate = fileContentRepository.findAll().size();
+        long blobCountBeforeCreate = contentBlobRepository.count();
+        byte[] csv = "id,name\n1,John\n2,Jane,Doe\n".getBytes(StandardCharsets.UTF_8);
+
+        // The third line has one field too many
+        MockMultipartFile file = new MockMultipartFile("file", "people.csv", "text/csv", csv);
+        restFileContentMockMvc.perform(multipart("/api/file-contents").file(file))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidcsv"))
+            .andExpect(jsonPath("$.line").value(3))
+            .andExpect(jsonPath("$.column").value(11));
+
+        // Validate nothing was persisted
+        assertThat(fileContentRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+        assertThat(contentBlobRepository.count()).isEqualTo(blobCountBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void getFileContentRows() throws Exception {
+        byte[] csv = "id,name\n1,a\n2,\"b\nb\"\n3,c\n4,d\n5,e\n".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "rows.csv", "text/csv", csv);
+        restFileContentMockMvc.perform(multipart("/api/file-contents").file(file))
+            .andExpect(status().isCreated());
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        Long id = fileContentList.get(fileContentList.size() - 1).getId();
+
+        // Get the rows, read from the indexed rows every 2 rows
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=2&count=3", id))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv"))
+            .andExpect(content().string("2,\"b\nb\"\n3,c\n4,d\n"));
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=5&count=10", id))
+            .andExpect(status().isOk())
+            .andExpect(content().string("5,e\n"));
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=-1&count=1", id))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getRowsOfLargeCsvFileContent() throws Exception {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 1; i <= 10000; i++) {
+            csv.append(i).append(",name").append(i).append('\n');
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "large.csv", "text/csv",
+            csv.toString().getBytes(StandardCharsets.UTF_8));
+        restFileContentMockMvc.perform(multipart("/api/file-contents").file(file))
+            .andExpect(status().isCreated());
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
+
+        // The content is stored compressed, and decoded from the indexed row before each range
+        assertThat(BlobCodec.fromKey(testFileContent.getBlobKey())).isEqualTo(BlobCodec.GZIP);
+        assertThat(fileContentService.findRowIndex(testFileContent.getBlobKey()))
+            .hasValueSatisfying(rowIndex -> assertThat(rowIndex.getEncodedOffset(9999)).isPresent());
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=0&count=2", testFileContent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().string("id,name\n1,name1\n"));
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=5001&count=3", testFileContent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().string("5001,name5001\n5002,name5002\n5003,name5003\n"));
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=9999&count=2", testFileContent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().string("9999,name9999\n10000,name10000\n"));
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=10001&count=1", testFileContent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    @Transactional
+    public void getRowsOfNonIndexedFileContent() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/rows?from=0&count=1", fileContent.getId()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void createFileContentsInBatch() throws Exception {
+        int databaseSizeBeforeCreate = fileContentRepository.findAll().size();
+
+        // Create three FileContents, two of them sharing their content, over two batches
+        restFileContentMockMvc.perform(multipart("/api/file-contents/batch")
+            .file(new MockMultipartFile("files", "first.txt", DEFAULT_CONTENT_CONTENT_TYPE, DEFAULT_CONTENT))
+            .file(new MockMultipartFile("files", "second.txt", UPDATED_CONTENT_CONTENT_TYPE, UPDATED_CONTENT))
+            .file(new MockMultipartFile("files", "third.txt", DEFAULT_CONTENT_CONTENT_TYPE, DEFAULT_CONTENT)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$.[*].name").value(contains("first.txt", "second.txt", "third.txt")))
+            .andExpect(jsonPath("$.[*].content").doesNotExist());
+
+        // Validate the FileContents in the database
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        assertThat(fileContentList).hasSize(databaseSizeBeforeCreate + 3);
+        FileContent first = fileContentList.get(fileContentList.size() - 3);
+        FileContent third = fileContentList.get(fileContentList.size() - 1);
+        assertThat(first.getName()).isEqualTo("first.txt");
+        assertThat(third.getBlobKey()).isEqualTo(first.getBlobKey());
+        assertThat(blobService.read(third.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+        assertThat(contentBlobRepository.findOneByContentHash(first.getContentHash()))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isEqualTo(2L));
     }
 
     @Test
@@ -163,23 +324,64 @@ public class FileContentResourceIntTest {
     @Transactional
     public void getAllFileContents() throws Exception {
         // Initialize the database
-        fileContentRepository.saveAndFlush(fileContent);
+        persistFileContent();
 
         // Get all the fileContentList
-        restFileContentMockMvc.perform(get("/api/file-contents?sort=id,desc"))
+        restFileContentMockMvc.perform(get("/api/file-contents?size=1000"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(fileContent.getId().intValue())))
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME.toString())))
             .andExpect(jsonPath("$.[*].contentContentType").value(hasItem(DEFAULT_CONTENT_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].content").value(hasItem(Base64Utils.encodeToString(DEFAULT_CONTENT))));
+            .andExpect(jsonPath("$.[*].contentSize").value(hasItem(DEFAULT_CONTENT.length)))
+            .andExpect(jsonPath("$.[*].contentHash").value(hasItem(fileContent.getContentHash())))
+            .andExpect(jsonPath("$.[*].content").isEmpty());
     }
     
+    @Test
+    @Transactional
+    public void streamAllFileContents() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        // Stream all the fileContentList
+        restFileContentMockMvc.perform(get("/api/file-contents?stream=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(fileContent.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
+            .andExpect(jsonPath("$.[*].contentHash").value(hasItem(fileContent.getContentHash())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllFileContentsWithCursor() throws Exception {
+        // Initialize the database with two entities
+        persistFileContent();
+        Long firstId = fileContent.getId();
+        fileContent = createEntity(em);
+        persistFileContent();
+        Long secondId = fileContent.getId();
+
+        // Get the page starting right after the first entity
+        restFileContentMockMvc.perform(get("/api/file-contents?after={after}&size=1", firstId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(secondId.intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"first\"")));
+
+        // The first page links to the next one with the cursor of its last element
+        restFileContentMockMvc.perform(get("/api/file-contents?after={after}&size=1", firstId - 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(firstId.intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("/api/file-contents?after=" + firstId + "&size=1>; rel=\"next\"")));
+    }
+
     @Test
     @Transactional
     public void getFileContent() throws Exception {
         // Initialize the database
-        fileContentRepository.saveAndFlush(fileContent);
+        persistFileContent();
 
         // Get the fileContent
         restFileContentMockMvc.perform(get("/api/file-contents/{id}", fileContent.getId()))
@@ -191,6 +393,115 @@ public class FileContentResourceIntTest {
             .andExpect(jsonPath("$.content").value(Base64Utils.encodeToString(DEFAULT_CONTENT)));
     }
 
+    @Test
+    @Transactional
+    public void getFileContentNotModified() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        // Get the fileContent, then revalidate it with its ETag
+        String eTag = restFileContentMockMvc.perform(get("/api/file-contents/{id}", fileContent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}", fileContent.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Renaming the fileContent changes its ETag
+        fileContent.setName(UPDATED_NAME);
+        fileContentService.update(fileContent);
+        em.flush();
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}", fileContent.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+    }
+
+    @Test
+    @Transactional
+    public void getFileContentMetadataWithoutBlob() throws Exception {
+        // Initialize the database, then remove the blob behind the fileContent
+        persistFileContent();
+        String eTag = restFileContentMockMvc.perform(get("/api/file-contents/{id}", fileContent.getId()))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        blobStore.delete(BlobCodec.toStoreKey(fileContent.getBlobKey()));
+        assertThat(blobStore.exists(BlobCodec.toStoreKey(fileContent.getBlobKey()))).isFalse();
+
+        // Metadata reads never open the blob store
+        restFileContentMockMvc.perform(get("/api/file-contents?size=1000"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(fileContent.getId().intValue())))
+            .andExpect(jsonPath("$.[*].content").isEmpty());
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}", fileContent.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @Transactional
+    public void getFileContentData() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        // Get the content of the fileContent
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/data", fileContent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_CONTENT_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + fileContent.getContentHash() + "\""))
+            .andExpect(content().bytes(DEFAULT_CONTENT));
+    }
+
+    @Test
+    @Transactional
+    public void getFileContentDataNotModified() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/data", fileContent.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + fileContent.getContentHash() + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + fileContent.getContentHash() + "\""))
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @Transactional
+    public void getFileContentDataRange() throws Exception {
+        // Initialize the database
+        fileContent.setContent("0123456789".getBytes(StandardCharsets.US_ASCII));
+        persistFileContent();
+
+        // Get a range of the content of the fileContent
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/data", fileContent.getId())
+            .header(HttpHeaders.RANGE, "bytes=3-6"))
+            .andExpect(status().isPartialContent())
+            .andExpect(content().contentType(DEFAULT_CONTENT_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 3-6/10"))
+            .andExpect(content().string("3456"));
+    }
+
+    @Test
+    @Transactional
+    public void getFileContentDataUnsatisfiableRange() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/data", fileContent.getId())
+            .header(HttpHeaders.RANGE, "bytes=5-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + DEFAULT_CONTENT.length));
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingFileContentData() throws Exception {
+        restFileContentMockMvc.perform(get("/api/file-contents/{id}/data", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void getNonExistingFileContent() throws Exception {
@@ -203,7 +514,7 @@ public class FileContentResourceIntTest {
     @Transactional
     public void updateFileContent() throws Exception {
         // Initialize the database
-        fileContentRepository.saveAndFlush(fileContent);
+        persistFileContent();
 
         int databaseSizeBeforeUpdate = fileContentRepository.findAll().size();
 
@@ -226,8 +537,8 @@ public class FileContentResourceIntTest {
         assertThat(fileContentList).hasSize(databaseSizeBeforeUpdate);
         FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
         assertThat(testFileContent.getName()).isEqualTo(UPDATED_NAME);
-        assertThat(testFileContent.getContent()).isEqualTo(UPDATED_CONTENT);
         assertThat(testFileContent.getContentContentType()).isEqualTo(UPDATED_CONTENT_CONTENT_TYPE);
+        assertThat(blobService.read(testFileContent.getBlobKey())).isEqualTo(UPDATED_CONTENT);
     }
 
     @Test
@@ -252,7 +563,7 @@ public class FileContentResourceIntTest {
     @Transactional
     public void deleteFileContent() throws Exception {
         // Initialize the database
-        fileContentRepository.saveAndFlush(fileContent);
+        persistFileContent();
 
         int databaseSizeBeforeDelete = fileContentRepository.findAll().size();
 
@@ -266,6 +577,126 @@ public class FileContentResourceIntTest {
         assertThat(fileContentList).hasSize(databaseSizeBeforeDelete - 1);
     }
 
+    @Test
+    @Transactional
+    public void createDuplicateFileContent() throws Exception {
+        // Initialize the database
+        persistFileContent();
+        String blobKey = fileContent.getBlobKey();
+
+        // Upload the same content again
+        MockMultipartFile file = new MockMultipartFile("file", UPDATED_NAME, DEFAULT_CONTENT_CONTENT_TYPE, DEFAULT_CONTENT);
+        restFileContentMockMvc.perform(multipart("/api/file-contents").file(file))
+            .andExpect(status().isCreated());
+
+        // Both fileContents share the same blob
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
+        assertThat(testFileContent.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testFileContent.getBlobKey()).isEqualTo(blobKey);
+        assertThat(contentBlobRepository.findOneByContentHash(fileContent.getContentHash()))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isEqualTo(2L));
+    }
+
+    @Test
+    @Transactional
+    public void createFileContentFromExisting() throws Exception {
+        // Initialize the database
+        persistFileContent();
+        int databaseSizeBeforeCreate = fileContentRepository.findAll().size();
+
+        // Create a fileContent by reference to the stored content
+        InstantUploadDTO upload = createInstantUpload(fileContent.getContentHash(), DEFAULT_CONTENT.length);
+        restFileContentMockMvc.perform(post("/api/file-contents/instant")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(upload)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+
+        // The new fileContent shares the blob of the existing one
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        assertThat(fileContentList).hasSize(databaseSizeBeforeCreate + 1);
+        FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
+        assertThat(testFileContent.getBlobKey()).isEqualTo(fileContent.getBlobKey());
+        assertThat(testFileContent.getContentSize()).isEqualTo((long) DEFAULT_CONTENT.length);
+        assertThat(contentBlobRepository.findOneByContentHash(fileContent.getContentHash()))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isEqualTo(2L));
+    }
+
+    @Test
+    @Transactional
+    public void createFileContentFromUnknownContent() throws Exception {
+        int databaseSizeBeforeCreate = fileContentRepository.findAll().size();
+
+        InstantUploadDTO upload = createInstantUpload(StringUtils.repeat("0", 64), DEFAULT_CONTENT.length);
+        restFileContentMockMvc.perform(post("/api/file-contents/instant")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(upload)))
+            .andExpect(status().isNotFound());
+
+        assertThat(fileContentRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void createFileContentFromExistingWithOtherSize() throws Exception {
+        // Initialize the database
+        persistFileContent();
+
+        // The hash matches, but not the size
+        InstantUploadDTO upload = createInstantUpload(fileContent.getContentHash(), DEFAULT_CONTENT.length + 1);
+        restFileContentMockMvc.perform(post("/api/file-contents/instant")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(upload)))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void createFileContentFromExistingWithInvalidHash() throws Exception {
+        InstantUploadDTO upload = createInstantUpload("not-a-hash", DEFAULT_CONTENT.length);
+        restFileContentMockMvc.perform(post("/api/file-contents/instant")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(upload)))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static InstantUploadDTO createInstantUpload(String contentHash, long contentSize) {
+        InstantUploadDTO upload = new InstantUploadDTO();
+        upload.setName(UPDATED_NAME);
+        upload.setContentContentType(DEFAULT_CONTENT_CONTENT_TYPE);
+        upload.setContentHash(contentHash);
+        upload.setContentSize(contentSize);
+        return upload;
+    }
+
+    @Test
+    @Transactional
+    public void deleteSharedFileContent() throws Exception {
+        // Initialize the database with two fileContents sharing a blob
+        persistFileContent();
+        FileContent sharedFileContent = fileContent;
+        fileContent = createEntity(em);
+        persistFileContent();
+
+        restFileContentMockMvc.perform(delete("/api/file-contents/{id}", sharedFileContent.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+
+        // The blob is kept for the remaining fileContent
+        assertThat(contentBlobRepository.findOneByContentHash(fileContent.getContentHash()))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isEqualTo(1L));
+        assertThat(blobService.read(fileContent.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+
+        restFileContentMockMvc.perform(delete("/api/file-contents/{id}", fileContent.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+
+        // The last reference is gone
+        assertThat(contentBlobRepository.findOneByContentHash(fileContent.getContentHash()))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isZero());
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
@@ -3,12 +3,17 @@ package com.catalinms.fileupload.web.rest;
 import com.catalinms.fileupload.FileuploadApp;
 
 import com.catalinms.fileupload.domain.File;
+import com.catalinms.fileupload.repository.ContentBlobRepository;
 import com.catalinms.fileupload.repository.FileRepository;
+import com.catalinms.fileupload.service.BlobService;
 import com.catalinms.fileupload.service.FileService;
 import com.catalinms.fileupload.service.dto.FileDTO;
+import com.catalinms.fileupload.service.dto.InstantUploadDTO;
 import com.catalinms.fileupload.service.mapper.FileMapper;
+import com.catalinms.fileupload.service.storage.BlobCodec;
 import com.catalinms.fileupload.web.rest.errors.ExceptionTranslator;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,22 +21,30 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.Validator;
 
 import javax.persistence.EntityManager;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 
 import static com.catalinms.fileupload.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -52,6 +65,8 @@ public class FileResourceIntTest {
     private static final String DEFAULT_CONTENT_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_CONTENT_CONTENT_TYPE = "image/png";
 
+    private static final MediaType APPLICATION_CBOR = new MediaType("application", "cbor");
+
     @Autowired
     private FileRepository fileRepository;
 
@@ -61,9 +76,18 @@ public class FileResourceIntTest {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborMessageConverter;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -83,12 +107,12 @@ public class FileResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final FileResource fileResource = new FileResource(fileService);
+        final FileResource fileResource = new FileResource(fileService, blobService, jacksonMessageConverter.getObjectMapper());
         this.restFileMockMvc = MockMvcBuilders.standaloneSetup(fileResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
             .setConversionService(createFormattingConversionService())
-            .setMessageConverters(jacksonMessageConverter)
+            .setMessageConverters(jacksonMessageConverter, cborMessageConverter)
             .setValidator(validator).build();
     }
 
@@ -101,7 +125,6 @@ public class FileResourceIntTest {
     public static File createEntity(EntityManager em) {
         File file = new File()
             .name(DEFAULT_NAME)
-            .content(DEFAULT_CONTENT)
             .contentContentType(DEFAULT_CONTENT_CONTENT_TYPE);
         return file;
     }
@@ -111,6 +134,18 @@ public class FileResourceIntTest {
         file = createEntity(em);
     }
 
+    /**
+     * Persist the test entity, with its content in the blob store.
+     */
+    private void persistFile() {
+        FileDTO fileDTO = fileMapper.toDto(file);
+        fileDTO.setContent(DEFAULT_CONTENT);
+        FileDTO result = fileService.save(fileDTO);
+        file.setId(result.getId());
+        file.setContentHash(result.getContentHash());
+        em.flush();
+    }
+
     @Test
     @Transactional
     public void createFile() throws Exception {
@@ -118,6 +153,7 @@ public class FileResourceIntTest {
 
         // Create the File
         FileDTO fileDTO = fileMapper.toDto(file);
+        fileDTO.setContent(DEFAULT_CONTENT);
         restFileMockMvc.perform(post("/api/files")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
             .content(TestUtil.convertObjectToJsonBytes(fileDTO)))
@@ -128,8 +164,119 @@ public class FileResourceIntTest {
         assertThat(fileList).hasSize(databaseSizeBeforeCreate + 1);
         File testFile = fileList.get(fileList.size() - 1);
         assertThat(testFile.getName()).isEqualTo(DEFAULT_NAME);
-        assertThat(testFile.getContent()).isEqualTo(DEFAULT_CONTENT);
         assertThat(testFile.getContentContentType()).isEqualTo(DEFAULT_CONTENT_CONTENT_TYPE);
+        assertThat(testFile.getContentSize()).isEqualTo(DEFAULT_CONTENT.length);
+        assertThat(testFile.getContentHash()).hasSize(64);
+        assertThat(blobService.read(testFile.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void uploadFile() throws Exception {
+        int databaseSizeBeforeCreate = fileRepository.findAll().size();
+
+        // Upload the File as a multipart file
+        MockMultipartFile multipartFile = new MockMultipartFile("file", DEFAULT_NAME, DEFAULT_CONTENT_CONTENT_TYPE, DEFAULT_CONTENT);
+        restFileMockMvc.perform(multipart("/api/files").file(multipartFile))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME));
+
+        // Validate the File in the database
+        List<File> fileList = fileRepository.findAll();
+        assertThat(fileList).hasSize(databaseSizeBeforeCreate + 1);
+        File testFile = fileList.get(fileList.size() - 1);
+        assertThat(testFile.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(testFile.getContentContentType()).isEqualTo(DEFAULT_CONTENT_CONTENT_TYPE);
+        assertThat(blobService.read(testFile.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void uploadRawFile() throws Exception {
+        int databaseSizeBeforeCreate = fileRepository.findAll().size();
+
+        // Upload the File as the raw request body
+        restFileMockMvc.perform(post("/api/files")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"image.png\"")
+            .content(DEFAULT_CONTENT))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value("image.png"));
+
+        // Validate the File in the database
+        List<File> fileList = fileRepository.findAll();
+        assertThat(fileList).hasSize(databaseSizeBeforeCreate + 1);
+        File testFile = fileList.get(fileList.size() - 1);
+        assertThat(testFile.getContentContentType()).isEqualTo(MediaType.IMAGE_PNG_VALUE);
+        assertThat(blobService.read(testFile.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void uploadCompressibleRawFile() throws Exception {
+        byte[] content = StringUtils.repeat("compressible text\n", 1000).getBytes(StandardCharsets.UTF_8);
+
+        // Upload a compressible File as the raw request body
+        restFileMockMvc.perform(post("/api/files")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.txt\"")
+            .content(content))
+            .andExpect(status().isCreated());
+
+        // Validate the File is stored compressed, and read back as it was uploaded
+        List<File> fileList = fileRepository.findAll();
+        File testFile = fileList.get(fileList.size() - 1);
+        assertThat(BlobCodec.fromKey(testFile.getBlobKey())).isEqualTo(BlobCodec.GZIP);
+        assertThat(testFile.getContentSize()).isEqualTo((long) content.length);
+        try (InputStream encoded = blobService.openEncoded(testFile.getBlobKey())) {
+            assertThat(StreamUtils.copyToByteArray(encoded).length).isLessThan(content.length);
+        }
+        restFileMockMvc.perform(get("/api/files/{id}/data", testFile.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(content));
+    }
+
+    @Test
+    @Transactional
+    public void uploadRawFileWithoutName() throws Exception {
+        int databaseSizeBeforeCreate = fileRepository.findAll().size();
+
+        restFileMockMvc.perform(post("/api/files")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(DEFAULT_CONTENT))
+            .andExpect(status().isBadRequest());
+
+        assertThat(fileRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void uploadRawFileUpdate() throws Exception {
+        // Initialize the database
+        persistFile();
+
+        // Replace the File with the raw request body
+        restFileMockMvc.perform(put("/api/files/{id}", file.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + UPDATED_NAME + "\"")
+            .content(UPDATED_CONTENT))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+
+        // Validate the File in the database
+        File testFile = fileRepository.findById(file.getId()).get();
+        assertThat(testFile.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(blobService.read(testFile.getBlobKey())).isEqualTo(UPDATED_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void uploadRawFileUpdateNonExisting() throws Exception {
+        restFileMockMvc.perform(put("/api/files/{id}", Long.MAX_VALUE)
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + UPDATED_NAME + "\"")
+            .content(UPDATED_CONTENT))
+            .andExpect(status().isNotFound());
     }
 
     @Test
@@ -152,6 +299,33 @@ public class FileResourceIntTest {
         assertThat(fileList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    public void createFileFromExisting() throws Exception {
+        // Initialize the database
+        persistFile();
+        int databaseSizeBeforeCreate = fileRepository.findAll().size();
+
+        // Create a file by reference to the stored content
+        InstantUploadDTO upload = new InstantUploadDTO();
+        upload.setName(UPDATED_NAME);
+        upload.setContentContentType(DEFAULT_CONTENT_CONTENT_TYPE);
+        upload.setContentHash(file.getContentHash());
+        upload.setContentSize((long) DEFAULT_CONTENT.length);
+        restFileMockMvc.perform(post("/api/files/instant")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(upload)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME))
+            .andExpect(jsonPath("$.contentHash").value(file.getContentHash()));
+
+        // Validate the File in the database
+        List<File> fileList = fileRepository.findAll();
+        assertThat(fileList).hasSize(databaseSizeBeforeCreate + 1);
+        File testFile = fileList.get(fileList.size() - 1);
+        assertThat(testFile.getBlobKey()).isEqualTo(fileRepository.findById(file.getId()).get().getBlobKey());
+    }
+
     @Test
     @Transactional
     public void checkNameIsRequired() throws Exception {
@@ -175,23 +349,65 @@ public class FileResourceIntTest {
     @Transactional
     public void getAllFiles() throws Exception {
         // Initialize the database
-        fileRepository.saveAndFlush(file);
+        persistFile();
 
         // Get all the fileList
-        restFileMockMvc.perform(get("/api/files?sort=id,desc"))
+        restFileMockMvc.perform(get("/api/files?size=1000"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(file.getId().intValue())))
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME.toString())))
             .andExpect(jsonPath("$.[*].contentContentType").value(hasItem(DEFAULT_CONTENT_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].content").value(hasItem(Base64Utils.encodeToString(DEFAULT_CONTENT))));
+            .andExpect(jsonPath("$.[*].contentSize").value(hasItem(DEFAULT_CONTENT.length)))
+            .andExpect(jsonPath("$.[*].contentHash").value(hasItem(file.getContentHash())))
+            .andExpect(jsonPath("$.[*].content").isEmpty());
     }
     
+    @Test
+    @Transactional
+    public void streamAllFiles() throws Exception {
+        // Initialize the database
+        persistFile();
+
+        // Stream all the fileList
+        restFileMockMvc.perform(get("/api/files?stream=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(file.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)))
+            .andExpect(jsonPath("$.[*].contentHash").value(hasItem(file.getContentHash())))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    public void getAllFilesWithCursor() throws Exception {
+        // Initialize the database with two entities
+        persistFile();
+        Long firstId = file.getId();
+        file = createEntity(em);
+        persistFile();
+        Long secondId = file.getId();
+
+        // Get the page starting right after the first entity
+        restFileMockMvc.perform(get("/api/files?after={after}&size=1", firstId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(secondId.intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"first\"")));
+
+        // The first page links to the next one with the cursor of its last element
+        restFileMockMvc.perform(get("/api/files?after={after}&size=1", firstId - 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(firstId.intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("/api/files?after=" + firstId + "&size=1>; rel=\"next\"")));
+    }
+
     @Test
     @Transactional
     public void getFile() throws Exception {
         // Initialize the database
-        fileRepository.saveAndFlush(file);
+        persistFile();
 
         // Get the file
         restFileMockMvc.perform(get("/api/files/{id}", file.getId()))
@@ -203,6 +419,82 @@ public class FileResourceIntTest {
             .andExpect(jsonPath("$.content").value(Base64Utils.encodeToString(DEFAULT_CONTENT)));
     }
 
+    @Test
+    @Transactional
+    public void getFileAsCbor() throws Exception {
+        // Initialize the database
+        persistFile();
+
+        // Get the file, with its content as a native byte string rather than in base64
+        byte[] body = restFileMockMvc.perform(get("/api/files/{id}", file.getId())
+            .accept(APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+        FileDTO fileDTO = cborMessageConverter.getObjectMapper().readValue(body, FileDTO.class);
+        assertThat(fileDTO.getId()).isEqualTo(file.getId());
+        assertThat(fileDTO.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(fileDTO.getContent()).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void createFileFromCbor() throws Exception {
+        int databaseSizeBeforeCreate = fileRepository.findAll().size();
+
+        // Create the File from a CBOR body
+        FileDTO fileDTO = fileMapper.toDto(file);
+        fileDTO.setContent(DEFAULT_CONTENT);
+        restFileMockMvc.perform(post("/api/files")
+            .contentType(APPLICATION_CBOR)
+            .content(cborMessageConverter.getObjectMapper().writeValueAsBytes(fileDTO)))
+            .andExpect(status().isCreated());
+
+        // Validate the File in the database
+        List<File> fileList = fileRepository.findAll();
+        assertThat(fileList).hasSize(databaseSizeBeforeCreate + 1);
+        File testFile = fileList.get(fileList.size() - 1);
+        assertThat(blobService.read(testFile.getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void getFileNotModified() throws Exception {
+        // Initialize the database
+        persistFile();
+
+        // Get the file, then revalidate it with its ETag
+        String eTag = restFileMockMvc.perform(get("/api/files/{id}", file.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        restFileMockMvc.perform(get("/api/files/{id}", file.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    @Transactional
+    public void getFileData() throws Exception {
+        // Initialize the database
+        persistFile();
+
+        // Get the content of the file
+        restFileMockMvc.perform(get("/api/files/{id}/data", file.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(DEFAULT_CONTENT_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + file.getContentHash() + "\""))
+            .andExpect(content().bytes(DEFAULT_CONTENT));
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingFileData() throws Exception {
+        restFileMockMvc.perform(get("/api/files/{id}/data", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void getNonExistingFile() throws Exception {
@@ -215,7 +507,7 @@ public class FileResourceIntTest {
     @Transactional
     public void updateFile() throws Exception {
         // Initialize the database
-        fileRepository.saveAndFlush(file);
+        persistFile();
 
         int databaseSizeBeforeUpdate = fileRepository.findAll().size();
 
@@ -225,9 +517,9 @@ public class FileResourceIntTest {
         em.detach(updatedFile);
         updatedFile
             .name(UPDATED_NAME)
-            .content(UPDATED_CONTENT)
             .contentContentType(UPDATED_CONTENT_CONTENT_TYPE);
         FileDTO fileDTO = fileMapper.toDto(updatedFile);
+        fileDTO.setContent(UPDATED_CONTENT);
 
         restFileMockMvc.perform(put("/api/files")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
@@ -239,8 +531,64 @@ public class FileResourceIntTest {
         assertThat(fileList).hasSize(databaseSizeBeforeUpdate);
         File testFile = fileList.get(fileList.size() - 1);
         assertThat(testFile.getName()).isEqualTo(UPDATED_NAME);
-        assertThat(testFile.getContent()).isEqualTo(UPDATED_CONTENT);
         assertThat(testFile.getContentContentType()).isEqualTo(UPDATED_CONTENT_CONTENT_TYPE);
+        assertThat(blobService.read(testFile.getBlobKey())).isEqualTo(UPDATED_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void updateFileWithSameContent() throws Exception {
+        // Initialize the database
+        persistFile();
+        String blobKey = fileRepository.findById(file.getId()).get().getBlobKey();
+
+        // Update the file with the content it already has
+        File updatedFile = fileRepository.findById(file.getId()).get();
+        em.detach(updatedFile);
+        updatedFile.name(UPDATED_NAME);
+        FileDTO fileDTO = fileMapper.toDto(updatedFile);
+        fileDTO.setContent(DEFAULT_CONTENT);
+
+        restFileMockMvc.perform(put("/api/files")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(fileDTO)))
+            .andExpect(status().isOk());
+
+        // The file keeps its blob, still referenced once
+        File testFile = fileRepository.findById(file.getId()).get();
+        assertThat(testFile.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testFile.getBlobKey()).isEqualTo(blobKey);
+        assertThat(blobService.read(blobKey)).isEqualTo(DEFAULT_CONTENT);
+        assertThat(contentBlobRepository.findOneByBlobKey(blobKey))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isEqualTo(1L));
+    }
+
+    @Test
+    @Transactional
+    public void updateFileWithoutContent() throws Exception {
+        // Initialize the database
+        persistFile();
+        String blobKey = fileRepository.findById(file.getId()).get().getBlobKey();
+
+        // Update the name of the file only
+        File updatedFile = fileRepository.findById(file.getId()).get();
+        em.detach(updatedFile);
+        updatedFile.name(UPDATED_NAME);
+        FileDTO fileDTO = fileMapper.toDto(updatedFile);
+
+        restFileMockMvc.perform(put("/api/files")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(fileDTO)))
+            .andExpect(status().isOk());
+
+        // The file keeps its content
+        File testFile = fileRepository.findById(file.getId()).get();
+        assertThat(testFile.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testFile.getBlobKey()).isEqualTo(blobKey);
+        assertThat(testFile.getContentSize()).isEqualTo((long) DEFAULT_CONTENT.length);
+        assertThat(blobService.read(blobKey)).isEqualTo(DEFAULT_CONTENT);
+        assertThat(contentBlobRepository.findOneByBlobKey(blobKey))
+            .hasValueSatisfying(contentBlob -> assertThat(contentBlob.getRefCount()).isEqualTo(1L));
     }
 
     @Test
@@ -266,7 +614,7 @@ public class FileResourceIntTest {
     @Transactional
     public void deleteFile() throws Exception {
         // Initialize the database
-        fileRepository.saveAndFlush(file);
+        persistFile();
 
         int databaseSizeBeforeDelete = fileRepository.findAll().size();
 
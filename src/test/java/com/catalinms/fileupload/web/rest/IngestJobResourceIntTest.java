@@ -0,0 +1,199 @@
+package com.catalinms.fileupload.web.rest;
+
+import com.catalinms.fileupload.FileuploadApp;
+
+import com.catalinms.fileupload.config.ApplicationProperties;
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.domain.IngestJob;
+import com.catalinms.fileupload.domain.enumeration.IngestJobStatus;
+import com.catalinms.fileupload.repository.IngestJobRepository;
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.FileContentService;
+import com.catalinms.fileupload.service.IngestJobService;
+import com.catalinms.fileupload.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.Validator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static com.catalinms.fileupload.web.rest.TestUtil.createFormattingConversionService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the IngestJobResource REST controller.
+ * <p>
+ * The jobs are processed on other threads, which only see committed data, so these tests are not transactional
+ * and clean up after themselves.
+ *
+ * @see IngestJobResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FileuploadApp.class)
+public class IngestJobResourceIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+
+    private static final String DEFAULT_CONTENT_CONTENT_TYPE = "text/plain";
+
+    private static final byte[] DEFAULT_CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private static final long PROCESSING_TIMEOUT_MILLIS = 10000;
+
+    @Autowired
+    private IngestJobRepository ingestJobRepository;
+
+    @Autowired
+    private IngestJobService ingestJobService;
+
+    @Autowired
+    private FileContentService fileContentService;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private Validator validator;
+
+    private MockMvc restIngestJobMockMvc;
+
+    @Before
+    public void setup() {
+        final IngestJobResource ingestJobResource = new IngestJobResource(ingestJobService);
+        this.restIngestJobMockMvc = MockMvcBuilders.standaloneSetup(ingestJobResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter)
+            .setValidator(validator).build();
+    }
+
+    @Test
+    public void createFileContentAsync() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", DEFAULT_NAME, DEFAULT_CONTENT_CONTENT_TYPE, DEFAULT_CONTENT);
+        String location = restIngestJobMockMvc.perform(multipart("/api/file-contents").file(file).param("async", "true"))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists(HttpHeaders.LOCATION))
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+            .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        Long id = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        IngestJob job = awaitCompletion(id);
+        try {
+            assertThat(job.getStatus()).isEqualTo(IngestJobStatus.COMPLETED);
+            assertThat(job.getCompletedDate()).isNotNull();
+            Optional<FileContent> fileContent = fileContentService.findOne(job.getFileContentId());
+            assertThat(fileContent).isPresent();
+            assertThat(fileContent.get().getName()).isEqualTo(DEFAULT_NAME);
+            assertThat(fileContent.get().getContentContentType()).isEqualTo(DEFAULT_CONTENT_CONTENT_TYPE);
+            assertThat(blobService.read(fileContent.get().getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+
+            restIngestJobMockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(IngestJobStatus.COMPLETED.toString()))
+                .andExpect(jsonPath("$.fileContentId").value(job.getFileContentId().intValue()));
+        } finally {
+            if (job.getFileContentId() != null) {
+                fileContentService.delete(job.getFileContentId());
+            }
+            ingestJobRepository.deleteById(id);
+        }
+    }
+
+    @Test
+    public void createInvalidCsvFileContentAsync() throws Exception {
+        byte[] csv = "id,name\n1,John\n2,Jane,Doe\n".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "people.csv", "text/csv", csv);
+        String location = restIngestJobMockMvc.perform(multipart("/api/file-contents").file(file).param("async", "true"))
+            .andExpect(status().isAccepted())
+            .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        Long id = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        // The job fails with the title of the problem, without the details of the exception
+        IngestJob job = awaitCompletion(id);
+        try {
+            assertThat(job.getStatus()).isEqualTo(IngestJobStatus.FAILED);
+            assertThat(job.getErrorMessage()).isEqualTo("Invalid CSV file");
+            assertThat(job.getFileContentId()).isNull();
+        } finally {
+            ingestJobRepository.deleteById(id);
+        }
+    }
+
+    @Test
+    public void resumeInterruptedJobs() throws Exception {
+        // Initialize the database with a queued job, still with its staging file, and a processing job without it
+        IngestJob queued = ingestJobRepository.save(new IngestJob()
+            .name(DEFAULT_NAME)
+            .contentContentType(DEFAULT_CONTENT_CONTENT_TYPE)
+            .status(IngestJobStatus.QUEUED));
+        Path stagingDirectory = Paths.get(applicationProperties.getStorage().getStagingLocation());
+        Files.createDirectories(stagingDirectory);
+        Files.write(stagingDirectory.resolve("ingest-" + queued.getId()), DEFAULT_CONTENT);
+        IngestJob processing = ingestJobRepository.save(new IngestJob()
+            .name(DEFAULT_NAME)
+            .contentContentType(DEFAULT_CONTENT_CONTENT_TYPE)
+            .status(IngestJobStatus.PROCESSING));
+
+        ingestJobService.resumeInterruptedJobs();
+
+        IngestJob resumed = awaitCompletion(queued.getId());
+        try {
+            assertThat(resumed.getStatus()).isEqualTo(IngestJobStatus.COMPLETED);
+            Optional<FileContent> fileContent = fileContentService.findOne(resumed.getFileContentId());
+            assertThat(fileContent).isPresent();
+            assertThat(blobService.read(fileContent.get().getBlobKey())).isEqualTo(DEFAULT_CONTENT);
+            IngestJob failed = ingestJobRepository.findById(processing.getId()).get();
+            assertThat(failed.getStatus()).isEqualTo(IngestJobStatus.FAILED);
+            assertThat(failed.getErrorMessage()).isNotEmpty();
+            assertThat(failed.getCompletedDate()).isNotNull();
+        } finally {
+            if (resumed.getFileContentId() != null) {
+                fileContentService.delete(resumed.getFileContentId());
+            }
+            ingestJobRepository.deleteById(queued.getId());
+            ingestJobRepository.deleteById(processing.getId());
+        }
+    }
+
+    @Test
+    public void getNonExistingIngestJob() throws Exception {
+        restIngestJobMockMvc.perform(get("/api/file-contents/jobs/{id}", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    private IngestJob awaitCompletion(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + PROCESSING_TIMEOUT_MILLIS;
+        IngestJob job = ingestJobRepository.findById(id).get();
+        while (job.getStatus() != IngestJobStatus.COMPLETED && job.getStatus() != IngestJobStatus.FAILED
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = ingestJobRepository.findById(id).get();
+        }
+        return job;
+    }
+}
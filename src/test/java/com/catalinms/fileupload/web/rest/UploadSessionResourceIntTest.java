@@ -0,0 +1,513 @@
+package com.catalinms.fileupload.web.rest;
+
+import com.catalinms.fileupload.FileuploadApp;
+
+import com.catalinms.fileupload.config.ApplicationProperties;
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.domain.UploadSession;
+import com.catalinms.fileupload.repository.FileContentRepository;
+import com.catalinms.fileupload.repository.UploadSessionRepository;
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.FileContentService;
+import com.catalinms.fileupload.service.UploadSessionService;
+import com.catalinms.fileupload.web.rest.errors.ExceptionTranslator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.Validator;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.catalinms.fileupload.web.rest.TestUtil.createFormattingConversionService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the UploadSessionResource REST controller.
+ *
+ * @see UploadSessionResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FileuploadApp.class)
+public class UploadSessionResourceIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+
+    private static final String DEFAULT_CONTENT_CONTENT_TYPE = "text/plain";
+
+    private static final byte[] FIRST_CHUNK = "01234".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SECOND_CHUNK = "56789".getBytes(StandardCharsets.US_ASCII);
+    private static final long DEFAULT_CONTENT_SIZE = FIRST_CHUNK.length + SECOND_CHUNK.length;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private FileContentRepository fileContentRepository;
+
+    @Autowired
+    private FileContentService fileContentService;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private Validator validator;
+
+    private MockMvc restUploadSessionMockMvc;
+
+    private UploadSession uploadSession;
+
+    private boolean uploadSessionCommitted;
+
+    @Before
+    public void setup() {
+        final UploadSessionResource uploadSessionResource = new UploadSessionResource(uploadSessionService);
+        this.restUploadSessionMockMvc = MockMvcBuilders.standaloneSetup(uploadSessionResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter)
+            .setValidator(validator).build();
+    }
+
+    /**
+     * Create an entity for this test.
+     */
+    public static UploadSession createEntity(EntityManager em) {
+        return new UploadSession()
+            .name(DEFAULT_NAME)
+            .contentContentType(DEFAULT_CONTENT_CONTENT_TYPE)
+            .contentSize(DEFAULT_CONTENT_SIZE);
+    }
+
+    @Before
+    public void initTest() {
+        uploadSession = createEntity(em);
+    }
+
+    /**
+     * Persist the test entity, with its staging file.
+     */
+    private void persistUploadSession() {
+        uploadSession = uploadSessionService.create(uploadSession);
+        em.flush();
+    }
+
+    /**
+     * Persist the test entity in its own transaction, for the tests of the chunks, which are written outside of
+     * any transaction. The entity is deleted after the test.
+     */
+    private void commitUploadSession() {
+        uploadSession = uploadSessionService.create(uploadSession);
+        uploadSessionCommitted = true;
+    }
+
+    @After
+    public void deleteCommittedUploadSession() {
+        if (uploadSessionCommitted) {
+            uploadSessionService.delete(uploadSession.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    public void createUploadSession() throws Exception {
+        int databaseSizeBeforeCreate = uploadSessionRepository.findAll().size();
+
+        // Create the UploadSession
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(uploadSession)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.committedSize").value(0));
+
+        // Validate the UploadSession in the database
+        List<UploadSession> uploadSessionList = uploadSessionRepository.findAll();
+        assertThat(uploadSessionList).hasSize(databaseSizeBeforeCreate + 1);
+        UploadSession testUploadSession = uploadSessionList.get(uploadSessionList.size() - 1);
+        assertThat(testUploadSession.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(testUploadSession.getContentContentType()).isEqualTo(DEFAULT_CONTENT_CONTENT_TYPE);
+        assertThat(testUploadSession.getContentSize()).isEqualTo(DEFAULT_CONTENT_SIZE);
+        assertThat(testUploadSession.getCommittedSize()).isEqualTo(0L);
+    }
+
+    @Test
+    @Transactional
+    public void createUploadSessionWithExistingId() throws Exception {
+        int databaseSizeBeforeCreate = uploadSessionRepository.findAll().size();
+
+        // Create the UploadSession with an existing ID
+        uploadSession.setId(1L);
+
+        // An entity with an existing ID cannot be created, so this API call must fail
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(uploadSession)))
+            .andExpect(status().isBadRequest());
+
+        // Validate the UploadSession in the database
+        assertThat(uploadSessionRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    public void checkContentSizeIsRequired() throws Exception {
+        int databaseSizeBeforeTest = uploadSessionRepository.findAll().size();
+        // set the field null
+        uploadSession.setContentSize(null);
+
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(uploadSession)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(uploadSessionRepository.findAll()).hasSize(databaseSizeBeforeTest);
+    }
+
+    @Test
+    public void appendChunks() throws Exception {
+        // Initialize the database
+        commitUploadSession();
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset=0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(FIRST_CHUNK))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(FIRST_CHUNK.length));
+
+        // The committed size is where the client resumes from
+        restUploadSessionMockMvc.perform(get("/api/upload-sessions/{id}", uploadSession.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(FIRST_CHUNK.length));
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset={offset}", uploadSession.getId(), FIRST_CHUNK.length)
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(SECOND_CHUNK))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(DEFAULT_CONTENT_SIZE));
+    }
+
+    @Test
+    public void appendChunkAtWrongOffset() throws Exception {
+        // Initialize the database
+        commitUploadSession();
+        uploadSessionService.append(uploadSession.getId(), 0, new ByteArrayInputStream(FIRST_CHUNK));
+
+        // Sending the first chunk again is refused, with the offset to resume from
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset=0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(FIRST_CHUNK))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.offset").value(FIRST_CHUNK.length));
+    }
+
+    @Test
+    public void appendChunkWhileAnotherIsWritten() throws Exception {
+        // Initialize the database
+        commitUploadSession();
+
+        // The staging file is locked while a chunk is written to it
+        try (FileChannel channel = FileChannel.open(Paths.get(applicationProperties.getStorage().getStagingLocation())
+            .resolve(uploadSession.getId().toString()), StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset=0", uploadSession.getId())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(FIRST_CHUNK))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.offset").value(0));
+        }
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset=0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(FIRST_CHUNK))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(FIRST_CHUNK.length));
+    }
+
+    @Test
+    public void appendChunkPastEnd() throws Exception {
+        // Initialize the database
+        uploadSession.setContentSize((long) FIRST_CHUNK.length - 1);
+        commitUploadSession();
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset=0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(FIRST_CHUNK))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void completeUploadSession() throws Exception {
+        // Initialize the database
+        commitUploadSession();
+        uploadSessionService.append(uploadSession.getId(), 0, new ByteArrayInputStream(FIRST_CHUNK));
+        uploadSessionService.append(uploadSession.getId(), FIRST_CHUNK.length, new ByteArrayInputStream(SECOND_CHUNK));
+        int fileContentsBeforeComplete = fileContentRepository.findAll().size();
+
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions/{id}/complete", uploadSession.getId()))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.contentContentType").value(DEFAULT_CONTENT_CONTENT_TYPE))
+            .andExpect(jsonPath("$.contentSize").value(DEFAULT_CONTENT_SIZE));
+
+        // The session is replaced by the fileContent
+        assertThat(uploadSessionRepository.findById(uploadSession.getId())).isEmpty();
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        assertThat(fileContentList).hasSize(fileContentsBeforeComplete + 1);
+        FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
+        try {
+            assertThat(blobService.read(testFileContent.getBlobKey()))
+                .isEqualTo("0123456789".getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            fileContentService.delete(testFileContent.getId());
+        }
+    }
+
+    @Test
+    public void completeCsvUploadSession() throws Exception {
+        byte[] csv = "id,name\n1,a\n2,b\n3,c\n".getBytes(StandardCharsets.UTF_8);
+
+        // Initialize the database
+        uploadSession.contentContentType("text/csv").contentSize((long) csv.length);
+        commitUploadSession();
+        uploadSessionService.append(uploadSession.getId(), 0, new ByteArrayInputStream(csv));
+
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions/{id}/complete", uploadSession.getId()))
+            .andExpect(status().isCreated());
+
+        // The rows of the fileContent are indexed as for a direct upload
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
+        try {
+            assertThat(fileContentService.findRowIndex(testFileContent.getBlobKey())).isPresent();
+        } finally {
+            fileContentService.delete(testFileContent.getId());
+        }
+    }
+
+    @Test
+    public void completeInvalidCsvUploadSession() throws Exception {
+        byte[] csv = "id,name\n1,John\n2,Jane,Doe\n".getBytes(StandardCharsets.UTF_8);
+
+        // Initialize the database
+        uploadSession.contentContentType("text/csv").contentSize((long) csv.length);
+        commitUploadSession();
+        uploadSessionService.append(uploadSession.getId(), 0, new ByteArrayInputStream(csv));
+        int fileContentsBeforeComplete = fileContentRepository.findAll().size();
+
+        // The third line has one field too many
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions/{id}/complete", uploadSession.getId()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidcsv"))
+            .andExpect(jsonPath("$.line").value(3))
+            .andExpect(jsonPath("$.column").value(11));
+
+        // The session is kept, and no fileContent is created
+        assertThat(uploadSessionRepository.findById(uploadSession.getId())).isPresent();
+        assertThat(fileContentRepository.findAll()).hasSize(fileContentsBeforeComplete);
+    }
+
+    @Test
+    public void completeIncompleteUploadSession() throws Exception {
+        // Initialize the database
+        commitUploadSession();
+        uploadSessionService.append(uploadSession.getId(), 0, new ByteArrayInputStream(FIRST_CHUNK));
+
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions/{id}/complete", uploadSession.getId()))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void writeChunksOutOfOrder() throws Exception {
+        // Initialize the database, with chunks of 4, 4 and 2 bytes
+        uploadSession.setChunkSize(4);
+        commitUploadSession();
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/2", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("89".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(2));
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("0123".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(6));
+
+        // A chunk sent again is not counted twice
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("0123".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(6));
+
+        // The received chunks tell which one is missing
+        restUploadSessionMockMvc.perform(get("/api/upload-sessions/{id}/chunks", uploadSession.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(contains(0, 2)));
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/1", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("4567".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committedSize").value(DEFAULT_CONTENT_SIZE));
+
+        restUploadSessionMockMvc.perform(post("/api/upload-sessions/{id}/complete", uploadSession.getId()))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.contentSize").value(DEFAULT_CONTENT_SIZE));
+        List<FileContent> fileContentList = fileContentRepository.findAll();
+        FileContent testFileContent = fileContentList.get(fileContentList.size() - 1);
+        try {
+            assertThat(blobService.read(testFileContent.getBlobKey()))
+                .isEqualTo("0123456789".getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            fileContentService.delete(testFileContent.getId());
+        }
+    }
+
+    @Test
+    public void writeSameChunkConcurrently() throws Exception {
+        // Initialize the database
+        uploadSession.setChunkSize(4);
+        commitUploadSession();
+
+        // Both chunks are past the check of the received chunks before either of them is recorded
+        CountDownLatch received = new CountDownLatch(2);
+        Callable<Optional<UploadSession>> writeChunk = () -> uploadSessionService.writeChunk(uploadSession.getId(), 0,
+            new ByteArrayInputStream("0123".getBytes(StandardCharsets.US_ASCII)) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    received.countDown();
+                    try {
+                        received.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.read(b, off, len);
+                }
+            });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Optional<UploadSession>>> results = executor.invokeAll(Arrays.asList(writeChunk, writeChunk));
+            for (Future<Optional<UploadSession>> result : results) {
+                assertThat(result.get().get().getCommittedSize()).isEqualTo(4L);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // The chunk is recorded and counted once
+        assertThat(uploadSessionService.findChunkIndexes(uploadSession.getId()).get()).containsExactly(0);
+        assertThat(uploadSessionRepository.findById(uploadSession.getId()).get().getCommittedSize()).isEqualTo(4L);
+    }
+
+    @Test
+    public void writeChunkWithWrongSize() throws Exception {
+        // Initialize the database
+        uploadSession.setChunkSize(4);
+        commitUploadSession();
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("012".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isBadRequest());
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/2", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("890".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isBadRequest());
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}/chunks/3", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content("0".getBytes(StandardCharsets.US_ASCII)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void appendToChunkedUploadSession() throws Exception {
+        // Initialize the database
+        uploadSession.setChunkSize(4);
+        commitUploadSession();
+
+        restUploadSessionMockMvc.perform(put("/api/upload-sessions/{id}?offset=0", uploadSession.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .content(FIRST_CHUNK))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingUploadSession() throws Exception {
+        restUploadSessionMockMvc.perform(get("/api/upload-sessions/{id}", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void deleteUploadSession() throws Exception {
+        // Initialize the database
+        persistUploadSession();
+        int databaseSizeBeforeDelete = uploadSessionRepository.findAll().size();
+
+        restUploadSessionMockMvc.perform(delete("/api/upload-sessions/{id}", uploadSession.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+
+        assertThat(uploadSessionRepository.findAll()).hasSize(databaseSizeBeforeDelete - 1);
+    }
+
+    @Test
+    @Transactional
+    public void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(UploadSession.class);
+        UploadSession uploadSession1 = new UploadSession();
+        uploadSession1.setId(1L);
+        UploadSession uploadSession2 = new UploadSession();
+        uploadSession2.setId(uploadSession1.getId());
+        assertThat(uploadSession1).isEqualTo(uploadSession2);
+        uploadSession2.setId(2L);
+        assertThat(uploadSession1).isNotEqualTo(uploadSession2);
+        uploadSession1.setId(null);
+        assertThat(uploadSession1).isNotEqualTo(uploadSession2);
+    }
+}
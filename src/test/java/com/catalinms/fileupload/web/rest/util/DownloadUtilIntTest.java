@@ -0,0 +1,86 @@
+package com.catalinms.fileupload.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import com.catalinms.fileupload.FileuploadApp;
+import com.catalinms.fileupload.domain.FileContent;
+import com.catalinms.fileupload.service.FileContentService;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests that {@link DownloadUtil} sends local blobs with a zero-copy transfer when running in Undertow, behind the
+ * whole filter chain, Spring Security wrappers included.
+ *
+ * @see DownloadUtil
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FileuploadApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"application.storage.type=filesystem", "application.storage.location=build/test-blobs"})
+public class DownloadUtilIntTest {
+
+    private static final byte[] CONTENT = new byte[256 * 1024];
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private FileContentService fileContentService;
+
+    private FileContent fileContent;
+
+    private Logger logger;
+
+    private Level level;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    @Before
+    public void setup() {
+        new Random(42).nextBytes(CONTENT);
+        fileContent = fileContentService.create("random.png", "image/png", new ByteArrayInputStream(CONTENT));
+        logger = (Logger) LoggerFactory.getLogger(DownloadUtil.class);
+        level = logger.getLevel();
+        logger.setLevel(Level.DEBUG);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(level);
+        fileContentService.delete(fileContent.getId());
+    }
+
+    @Test
+    public void sendsLocalBlobWithZeroCopyTransfer() {
+        ResponseEntity<byte[]> response = restTemplate.getForEntity("/api/file-contents/{id}/data", byte[].class,
+            fileContent.getId());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(CONTENT);
+        // the security headers are still written, before the transfer bypasses the response wrappers
+        assertThat(response.getHeaders().getFirst("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+            .contains("Sent " + CONTENT.length + " bytes with a zero-copy transfer");
+    }
+}
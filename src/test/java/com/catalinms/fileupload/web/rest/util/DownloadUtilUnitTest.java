@@ -0,0 +1,178 @@
+package com.catalinms.fileupload.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import com.catalinms.fileupload.service.BlobService;
+import com.catalinms.fileupload.service.dto.FileSummaryDTO;
+import com.catalinms.fileupload.service.storage.FileSystemBlobStore;
+import com.catalinms.fileupload.service.storage.StoredBlob;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Tests the range and content coding handling of {@link DownloadUtil}, with blobs read from the local disk.
+ *
+ * @see DownloadUtil
+ */
+public class DownloadUtilUnitTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] COMPRESSIBLE_CONTENT = new String(new char[1000]).replace("\0", "0123456789")
+        .getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BlobService blobService;
+
+    private FileSummaryDTO file;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setup() throws Exception {
+        blobService = new BlobService(new FileSystemBlobStore(folder.getRoot().toPath()));
+        StoredBlob blob = blobService.store(new ByteArrayInputStream(CONTENT), "text/plain");
+        file = new FileSummaryDTO(1L, "digits.txt", "text/plain", blob.getSize(), blob.getHash(), blob.getKey());
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void writeContentTest() throws Exception {
+        DownloadUtil.writeContent(file, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("text/plain");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void writeSingleRangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        DownloadUtil.writeContent(file, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    public void writeSuffixRangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        DownloadUtil.writeContent(file, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(response.getContentAsString()).isEqualTo("789");
+    }
+
+    @Test
+    public void writeMultipleRangesTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,8-");
+
+        DownloadUtil.writeContent(file, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring("multipart/byteranges; boundary=".length());
+        assertThat(response.getContentAsString()).isEqualTo(
+            "\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 0-1/10\r\n\r\n"
+                + "01"
+                + "\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 8-9/10\r\n\r\n"
+                + "89"
+                + "\r\n--" + boundary + "--\r\n");
+    }
+
+    @Test
+    public void writeUnsatisfiableRangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+
+        DownloadUtil.writeContent(file, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void writeMalformedRangeTest() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "lines=1-2");
+
+        DownloadUtil.writeContent(file, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+    }
+
+    @Test
+    public void writeEncodedContentTest() throws Exception {
+        FileSummaryDTO compressedFile = storeCompressible();
+        request.setMethod("GET");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        DownloadUtil.writeContent(compressedFile, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + compressedFile.getContentHash() + "-gzip\"");
+        assertThat(response.getContentLengthLong()).isLessThan(COMPRESSIBLE_CONTENT.length);
+        try (InputStream content = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(StreamUtils.copyToByteArray(content)).isEqualTo(COMPRESSIBLE_CONTENT);
+        }
+    }
+
+    @Test
+    public void writeDecodedContentTest() throws Exception {
+        FileSummaryDTO compressedFile = storeCompressible();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+
+        DownloadUtil.writeContent(compressedFile, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getContentAsByteArray()).isEqualTo(COMPRESSIBLE_CONTENT);
+    }
+
+    @Test
+    public void writeDecodedRangeTest() throws Exception {
+        FileSummaryDTO compressedFile = storeCompressible();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        DownloadUtil.writeContent(compressedFile, blobService, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    private FileSummaryDTO storeCompressible() {
+        StoredBlob blob = blobService.store(new ByteArrayInputStream(COMPRESSIBLE_CONTENT), "text/plain");
+        return new FileSummaryDTO(2L, "digits.txt", "text/plain", blob.getSize(), blob.getHash(), blob.getKey());
+    }
+}
@@ -5,12 +5,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
 
 /**
@@ -41,4 +43,27 @@ public class PaginationUtilUnitTest {
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(400L));
     }
 
+    @Test
+    public void generateKeysetPaginationHttpHeadersTest() {
+        String baseUrl = "/api/_search/example";
+        List<Long> content = Arrays.asList(11L, 12L, 13L);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(
+            new SliceImpl<>(content, PageRequest.of(0, 3), true), id -> id, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertTrue(strHeaders.size() == 1);
+        String expectedData = "</api/_search/example?after=13&size=3>; rel=\"next\","
+                + "</api/_search/example?size=3>; rel=\"first\"";
+        assertEquals(expectedData, strHeaders.get(0));
+        assertTrue(headers.get("X-Total-Count") == null);
+    }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersLastPageTest() {
+        String baseUrl = "/api/_search/example";
+        List<Long> content = Arrays.asList(11L, 12L);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(
+            new SliceImpl<>(content, PageRequest.of(0, 3), false), id -> id, baseUrl);
+        assertEquals("</api/_search/example?size=3>; rel=\"first\"", headers.getFirst(HttpHeaders.LINK));
+    }
 }